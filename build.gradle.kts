@@ -5,6 +5,7 @@ plugins {
     java
     id("com.google.protobuf") version "0.9.4"
     id("com.github.johnrengelman.shadow") version "8.1.1"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "org.example"
@@ -17,9 +18,11 @@ repositories {
 dependencies {
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+    testImplementation("io.grpc:grpc-inprocess:1.68.0")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
     implementation("com.squareup.retrofit2:retrofit:3.0.0")
     implementation("com.squareup.retrofit2:converter-gson:3.0.0")
+    implementation("com.squareup.retrofit2:converter-protobuf:3.0.0")
     implementation("io.grpc:grpc-netty-shaded:1.76.0")
     implementation("io.grpc:grpc-protobuf:1.68.0")
     implementation("io.grpc:grpc-stub:1.68.0")
@@ -27,6 +30,7 @@ dependencies {
     implementation("com.google.protobuf:protobuf-java:3.25.5")
     compileOnly("jakarta.annotation:jakarta.annotation-api:2.1.1")
     implementation("io.grpc:grpc-core:1.68.0")
+    jmh("io.grpc:grpc-inprocess:1.68.0")
 }
 
 java {
@@ -69,6 +73,15 @@ tasks.test {
     useJUnitPlatform()
 }
 
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
+
 tasks.jar {
     manifest {
         attributes(
@@ -0,0 +1,74 @@
+package sensor.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import sensor.dto.Reading;
+import sensor.utils.CalibrationEngine;
+import sensor.utils.CalibrationUtil;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CalibrationBenchmark {
+
+    @Param({"1", "4", "8"})
+    public int neighbors;
+
+    @Param({"MEAN", "IDW", "MEDIAN", "TRIMMED_MEAN"})
+    public CalibrationEngine.Strategy strategy;
+
+    private Reading own;
+    private Reading[] neighborReadings;
+    private double[] distances;
+    private CalibrationEngine engine;
+    private double[] ownValues;
+    private double[] neighborValues;
+    private double[] out;
+
+    @Setup
+    public void setup() {
+        own = new Reading(0L, 21.0, 1001.0, 45.0, 120.0, 8.0);
+        neighborReadings = new Reading[neighbors];
+        distances = new double[neighbors];
+        neighborValues = new double[neighbors * CalibrationEngine.CHANNELS];
+        for (int i = 0; i < neighbors; i++) {
+            neighborReadings[i] = new Reading(0L, 20.0 + i, 1000.0 + i, 44.0 + i, 110.0 + 5 * i, 7.0 + i);
+            distances[i] = 0.5 + i;
+            neighborValues[i * CalibrationEngine.CHANNELS] = neighborReadings[i].temperature();
+            neighborValues[i * CalibrationEngine.CHANNELS + 1] = neighborReadings[i].pressure();
+            neighborValues[i * CalibrationEngine.CHANNELS + 2] = neighborReadings[i].humidity();
+            neighborValues[i * CalibrationEngine.CHANNELS + 3] = neighborReadings[i].co();
+            neighborValues[i * CalibrationEngine.CHANNELS + 4] = neighborReadings[i].so2();
+        }
+        CalibrationEngine.Strategy[] strategies = new CalibrationEngine.Strategy[CalibrationEngine.CHANNELS];
+        Arrays.fill(strategies, strategy);
+        engine = new CalibrationEngine(strategies, 0.5, 2.0, 0.2, 3.0, neighbors);
+        ownValues = new double[]{own.temperature(), own.pressure(), own.humidity(), own.co(), own.so2()};
+        out = new double[CalibrationEngine.CHANNELS];
+    }
+
+    @Benchmark
+    public Reading calibrationUtil() {
+        return CalibrationUtil.calibrate(own, neighborReadings[0]);
+    }
+
+    @Benchmark
+    public Reading engineReading() {
+        return engine.calibrate(own, neighborReadings, distances);
+    }
+
+    @Benchmark
+    public double[] enginePrimitive() {
+        engine.calibrate(ownValues, neighborValues, distances, neighbors, out);
+        return out;
+    }
+}
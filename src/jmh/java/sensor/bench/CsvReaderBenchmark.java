@@ -0,0 +1,55 @@
+package sensor.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import sensor.dto.Reading;
+import sensor.utils.ColumnarReadingStore;
+import sensor.utils.CsvReader;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CsvReaderBenchmark {
+
+    @Param("src/main/java/data/readings.csv")
+    public String csvPath;
+
+    private String csv;
+    private Path store;
+    private ColumnarReadingStore columns;
+    private int row;
+
+    @Setup
+    public void setup() throws Exception {
+        csv = Paths.get(csvPath).toAbsolutePath().toString();
+        columns = ColumnarReadingStore.open(csv);
+        store = Paths.get(csv + ".col");
+    }
+
+    @Benchmark
+    public List<Reading> readCsv() throws Exception {
+        return CsvReader.readCsv(csv);
+    }
+
+    @Benchmark
+    public ColumnarReadingStore mapColumnarStore() throws Exception {
+        return ColumnarReadingStore.map(store);
+    }
+
+    @Benchmark
+    public Reading columnarRow() {
+        row = (row + 1) % columns.size();
+        return columns.get(row);
+    }
+}
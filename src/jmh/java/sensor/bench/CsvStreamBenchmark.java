@@ -0,0 +1,115 @@
+package sensor.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import sensor.dto.Reading;
+import sensor.utils.ColumnarReadingStore;
+import sensor.utils.CsvReader;
+import sensor.utils.CsvStreamReader;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Whole-file ingestion of a generated CSV shaped like data/readings.csv: the existing readCsv, the streaming
+// reader, and the columnar conversion built on it. parse* compare the field parsers on the same values.
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CsvStreamBenchmark {
+
+    @Param("1000000")
+    public int rows;
+
+    private Path csv;
+    private Path store;
+    private byte[][] fields;
+    private String[] fieldStrings;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        csv = Files.createTempFile("readings-", ".csv");
+        store = Files.createTempFile("readings-", ".col");
+        Random random = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(csv, StandardCharsets.US_ASCII)) {
+            writer.write("Temperature,Pressure,Humidity,CO,NO2,SO2,\n");
+            for (int i = 0; i < rows; i++) {
+                writer.write(String.format(Locale.ROOT, "%.1f,%d,%.2f,%d,%d,%.3f,%n",
+                        random.nextGaussian() * 8 + 20, 990 + random.nextInt(30), random.nextDouble() * 100,
+                        random.nextInt(400), random.nextInt(800), random.nextDouble() * 5));
+            }
+        }
+        fields = new byte[4096][];
+        fieldStrings = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            fieldStrings[i] = String.format(Locale.ROOT, "%.3f", random.nextGaussian() * 100);
+            fields[i] = fieldStrings[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(csv);
+        Files.deleteIfExists(store);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public List<Reading> readCsv() throws Exception {
+        return CsvReader.readCsv(csv.toString());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public double streamCsv() throws Exception {
+        double sum = 0;
+        double[] values = new double[CsvReader.CHANNELS.length];
+        try (CsvStreamReader reader = CsvStreamReader.open(csv)) {
+            while (reader.next(values)) {
+                sum += values[0];
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public Path convertColumnar() throws Exception {
+        ColumnarReadingStore.convert(csv.toString(), store);
+        return store;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double parseBytes() {
+        double sum = 0;
+        for (byte[] field : fields) {
+            sum += CsvStreamReader.parseDouble(field, 0, field.length);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double parseString() {
+        double sum = 0;
+        for (String field : fieldStrings) {
+            sum += Double.parseDouble(field);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,108 @@
+package sensor.bench;
+
+import io.grpc.ManagedChannel;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import sensor.ReadingGenerator;
+import sensor.SensorConfig;
+import sensor.client.SensorGRPCClient;
+import sensor.server.SensorGRPCServer;
+import sensor.utils.ColumnarReadingStore;
+import sensor.utils.NettyTransport;
+
+import java.net.ServerSocket;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// One sensor answering GetLastReading for many neighbors over loopback TCP. Each invocation is one round in
+// which every neighbor, on its own connection, asks for the latest reading at the same time, so throughput
+// is rounds per second (multiply by neighbors for QPS) and sample time is the latency of the slowest call.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GrpcFanInBenchmark {
+
+    private static final long SENSOR_ID = 1;
+
+    @Param("src/main/java/data/readings.csv")
+    public String csvPath;
+
+    @Param("256")
+    public int neighbors;
+
+    @Param({"DEFAULT", "DIRECT", "FIXED"})
+    public SensorGRPCServer.ServerExecutor executor;
+
+    @Param({"true", "false"})
+    public boolean nativeTransport;
+
+    private EventLoopGroup serverGroup;
+    private EventLoopGroup clientGroup;
+    private SensorGRPCServer server;
+    private final List<SensorGRPCClient> clients = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ReadingGenerator generator = new ReadingGenerator(null, null, SENSOR_ID,
+                ColumnarReadingStore.open(Paths.get(csvPath).toAbsolutePath().toString()), null);
+        generator.sample(1, System.currentTimeMillis());
+
+        SensorConfig config = new SensorConfig();
+        config.setGrpcServerExecutor(executor);
+        config.setGrpcNativeTransport(nativeTransport);
+
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        serverGroup = NettyTransport.newEventLoopGroup(2, nativeTransport);
+        clientGroup = NettyTransport.newEventLoopGroup(4, nativeTransport);
+        server = new SensorGRPCServer(port, serverGroup, config);
+        server.addSensor(generator);
+        server.start();
+
+        for (int i = 0; i < neighbors; i++) {
+            ManagedChannel channel = NettyChannelBuilder.forAddress("127.0.0.1", port)
+                    .eventLoopGroup(clientGroup)
+                    .channelType(NettyTransport.channelType(clientGroup))
+                    .directExecutor()
+                    .usePlaintext()
+                    .build();
+            SensorGRPCClient client = new SensorGRPCClient(channel, SENSOR_ID, channel::shutdown);
+            client.getLastReading();
+            clients.add(client);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        for (SensorGRPCClient client : clients) {
+            client.shutdown();
+        }
+        server.stop();
+        clientGroup.shutdownGracefully().await(5, TimeUnit.SECONDS);
+        serverGroup.shutdownGracefully().await(5, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public Object fanIn() {
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[clients.size()];
+        for (int i = 0; i < calls.length; i++) {
+            calls[i] = clients.get(i).getLastReadingAsync(1000);
+        }
+        return CompletableFuture.allOf(calls).join();
+    }
+}
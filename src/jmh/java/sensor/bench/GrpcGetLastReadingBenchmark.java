@@ -0,0 +1,80 @@
+package sensor.bench;
+
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import sensor.ReadingGenerator;
+import sensor.client.SensorGRPCClient;
+import sensor.grpc.ReadingResponse;
+import sensor.server.SensorGRPCServer;
+import sensor.utils.ColumnarReadingStore;
+
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GrpcGetLastReadingBenchmark {
+
+    private static final long SENSOR_ID = 1;
+
+    @Param("src/main/java/data/readings.csv")
+    public String csvPath;
+
+    @Param({"true", "false"})
+    public boolean directExecutor;
+
+    private SensorGRPCServer server;
+    private ManagedChannel channel;
+    private SensorGRPCClient client;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        ReadingGenerator generator = new ReadingGenerator(null, null, SENSOR_ID,
+                ColumnarReadingStore.open(Paths.get(csvPath).toAbsolutePath().toString()), null);
+        generator.sample(1, System.currentTimeMillis());
+
+        InProcessServerBuilder serverBuilder = InProcessServerBuilder.forName(name);
+        InProcessChannelBuilder channelBuilder = InProcessChannelBuilder.forName(name);
+        if (directExecutor) {
+            serverBuilder.directExecutor();
+            channelBuilder.directExecutor();
+        }
+        server = new SensorGRPCServer(serverBuilder, generator);
+        server.start();
+        channel = channelBuilder.build();
+        client = new SensorGRPCClient(channel, SENSOR_ID, channel::shutdown);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        client.shutdown();
+        channel.awaitTermination(5, TimeUnit.SECONDS);
+        server.stop();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ReadingResponse getLastReading() {
+        return client.getLastReading();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ReadingResponse getLastReadingConcurrent() {
+        return client.getLastReading();
+    }
+}
@@ -0,0 +1,63 @@
+package sensor.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import sensor.dto.Reading;
+import sensor.utils.CsvReader;
+import sensor.utils.ReadingCodec;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Encodes and decodes one upload-sized block of readings replayed from the bundled CSV at a 1 s cadence with a
+// few milliseconds of scheduler jitter.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadingCodecBenchmark {
+
+    @Param("src/main/java/data/readings.csv")
+    public String csvPath;
+
+    @Param("100")
+    public int blockSize;
+
+    @Param({"RAW", "GORILLA"})
+    public ReadingCodec.Type codec;
+
+    private List<Reading> block;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        List<Reading> rows = CsvReader.readCsv(Paths.get(csvPath).toAbsolutePath().toString());
+        Random random = new Random(42);
+        long timestamp = System.currentTimeMillis();
+        block = new ArrayList<>(blockSize);
+        for (int i = 0; i < blockSize; i++) {
+            timestamp += 1000 + random.nextInt(7) - 3;
+            block.add(rows.get(i % rows.size()).withTimestamp(timestamp));
+        }
+        encoded = codec.codec().encode(block);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.codec().encode(block);
+    }
+
+    @Benchmark
+    public List<Reading> decode() {
+        return codec.codec().decode(encoded);
+    }
+}
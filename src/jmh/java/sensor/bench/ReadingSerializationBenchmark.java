@@ -0,0 +1,79 @@
+package sensor.bench;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import sensor.dto.Reading;
+import sensor.dto.ReadingDto;
+import sensor.grpc.ReadingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReadingSerializationBenchmark {
+
+    private final Gson gson = new Gson();
+    private Reading reading;
+    private ReadingResponse response;
+    private byte[] responseBytes;
+    private ReadingDto dto;
+    private List<ReadingDto> batch;
+    private String json;
+
+    @Setup
+    public void setup() {
+        reading = new Reading(1_700_000_000_000L, 21.5, 1001.0, 45.0, 120.0, 8.0);
+        response = reading.toResponse();
+        responseBytes = response.toByteArray();
+        dto = reading.toDto();
+        json = gson.toJson(dto);
+        batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            batch.add(reading.withTimestamp(reading.timestamp() + i * 1000L).toDto());
+        }
+    }
+
+    @Benchmark
+    public ReadingResponse buildResponse() {
+        return reading.toResponse();
+    }
+
+    @Benchmark
+    public Reading fromResponse() {
+        return Reading.fromResponse(response);
+    }
+
+    @Benchmark
+    public byte[] protobufSerialize() {
+        return response.toByteArray();
+    }
+
+    @Benchmark
+    public ReadingResponse protobufParse() throws Exception {
+        return ReadingResponse.parseFrom(responseBytes);
+    }
+
+    @Benchmark
+    public String gsonSerialize() {
+        return gson.toJson(dto);
+    }
+
+    @Benchmark
+    public ReadingDto gsonParse() {
+        return gson.fromJson(json, ReadingDto.class);
+    }
+
+    @Benchmark
+    public String gsonSerializeBatch() {
+        return gson.toJson(batch);
+    }
+}
@@ -0,0 +1,74 @@
+package sensor.bench;
+
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import sensor.client.ReadingStreamUploader;
+import sensor.dto.Reading;
+import sensor.server.ReadingCollectorServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Many sensors sharing one ReportReadings stream to the reference collector over loopback TCP. Each
+// invocation offers one batch per sensor and waits until the collector has acknowledged all of it, so the
+// score is acknowledged readings per second end to end.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReportReadingsBenchmark {
+
+    private static final int SENSORS = 100;
+    private static final int BATCH = 50;
+
+    @Param({"64", "512"})
+    public int ackEvery;
+
+    private ReadingCollectorServer collector;
+    private ReadingStreamUploader uploader;
+    private final List<Reading> batch = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        collector = new ReadingCollectorServer(0, reading -> { }, ackEvery, 1);
+        collector.start();
+        uploader = new ReadingStreamUploader(NettyChannelBuilder.forAddress("127.0.0.1", collector.getPort())
+                .usePlaintext()
+                .build(), SENSORS * BATCH);
+        uploader.start();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(new Reading(now + i * 1000L, 20 + i % 5, 1013, 45, 300, 12));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        uploader.close(5000);
+        collector.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SENSORS * BATCH)
+    public long report() throws InterruptedException {
+        for (int sensor = 0; sensor < SENSORS; sensor++) {
+            while (!uploader.offer(sensor, batch)) {
+                Thread.onSpinWait();
+            }
+        }
+        while (uploader.getPendingCount() > 0) {
+            Thread.sleep(0, 100_000);
+        }
+        return collector.getReceivedCount();
+    }
+}
@@ -1,38 +1,116 @@
 package sensor;
 
-import sensor.client.SensorGRPCClient;
+import sensor.client.NeighborClientFactory;
+import sensor.client.NeighborFetcher;
+import sensor.client.NeighborLink;
+import sensor.client.NeighborLocator;
+import sensor.client.ReadingUploader;
 import sensor.client.ServerClient;
-import sensor.dto.ReadingDto;
-import sensor.utils.CalibrationUtil;
-import sensor.utils.CsvReader;
+import sensor.dto.Reading;
+import sensor.dto.WindowSummary;
+import sensor.metrics.Counter;
+import sensor.metrics.Histogram;
+import sensor.metrics.MetricsRegistry;
+import sensor.utils.CalibrationEngine;
 import sensor.utils.NeighborInfo;
+import sensor.utils.ReadingHistory;
+import sensor.utils.ReadingSource;
+import sensor.utils.ReportFilter;
+import sensor.utils.WindowAggregator;
 
-import sensor.grpc.ReadingResponse;
-
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 
 public class ReadingGenerator {
 
-    private NeighborInfo neighbor;
+    public enum NeighborMode {
+        STREAM,
+        FIRST,
+        ALL
+    }
+
+    public enum ReportMode {
+        ALL,
+        ON_CHANGE
+    }
+
+    private static final Logger logger = Logger.getLogger(ReadingGenerator.class.getName());
+    private static final Reading[] NO_READINGS = new Reading[0];
+
     private final ServerClient serverClient;
+    private final ReadingUploader uploader;
+    private final NeighborClientFactory neighborClientFactory;
+    private final NeighborLocator locator;
     private final long sensorId;
-    private final List<Map<String, Object>> csvReadings;
-    private long activeSeconds = 0;
-    private Map<String, Object> lastReading;
-    private int updateNeighborCounter = 0;
-    private final int updateNeighborEvery = 10;
-    private SensorGRPCClient neighborGRPCClient;
+    private final double latitude;
+    private final double longitude;
+    private final ReadingSource readings;
+    private final ReadingHistory history;
+    private final WindowAggregator aggregator;
+    private final boolean summariesOnly;
+    private final CalibrationEngine calibrationEngine;
+    private final ReportFilter reportFilter;
+    private final int neighborCount;
+    private final NeighborMode neighborMode;
+    private final long neighborBudgetMillis;
+    private final AtomicReference<State> state = new AtomicReference<>(State.INITIAL);
+    // STREAM fan-in buffer, owned by the sampling thread like the calibration engine's scratch arrays and
+    // resized only when the neighbor set changes size.
+    private Reading[] neighborScratch = NO_READINGS;
+    private long locatorVersion = -1;
+    private final List<Consumer<Reading>> readingListeners = new CopyOnWriteArrayList<>();
     private volatile boolean running = true;
+    private final Histogram processLatency;
+    private final Counter calibratedSamples;
+    private final Counter uncalibratedSamples;
+    private final Counter processErrors;
+    private final Counter suppressed;
+    private final Counter refreshErrors;
+
+    // Everything the sampling loop shares with gRPC threads, the refresh task and the shutdown hook. Writers
+    // publish a new instance; readers take one consistent snapshot without locking. The distances array is
+    // never written after publication.
+    public record State(long activeSeconds, Reading lastReading, List<NeighborLink> neighborLinks,
+                        double[] neighborDistances) {
+
+        static final State INITIAL = new State(0, null, List.of(), new double[0]);
+
+        State withReading(long activeSeconds, Reading lastReading) {
+            return new State(activeSeconds, lastReading, neighborLinks, neighborDistances);
+        }
+
+        State withNeighbors(List<NeighborLink> neighborLinks, double[] neighborDistances) {
+            return new State(activeSeconds, lastReading, neighborLinks, neighborDistances);
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
 
     public NeighborInfo getNeighbor() {
-        return neighbor;
+        List<NeighborLink> links = state.get().neighborLinks();
+        return links.isEmpty() ? null : links.get(0).getInfo();
+    }
+
+    public List<NeighborInfo> getNeighbors() {
+        List<NeighborLink> links = state.get().neighborLinks();
+        List<NeighborInfo> neighbors = new ArrayList<>(links.size());
+        for (NeighborLink link : links) {
+            neighbors.add(link.getInfo());
+        }
+        return neighbors;
     }
 
     public void setNeighbors(NeighborInfo neighbor) {
-        this.neighbor = neighbor;
+        updateNeighbors(neighbor == null ? List.of() : List.of(neighbor));
     }
 
     public ServerClient getServerClient() {
@@ -43,156 +121,293 @@ public class ReadingGenerator {
         return sensorId;
     }
 
-    public List<Map<String, Object>> getCsvReadings() {
-        return csvReadings;
+    public ReadingSource getReadings() {
+        return readings;
+    }
+
+    public ReadingHistory getHistory() {
+        return history;
+    }
+
+    public WindowAggregator getAggregator() {
+        return aggregator;
     }
 
     public long getActiveSeconds() {
-        return activeSeconds;
+        return state.get().activeSeconds();
     }
 
     public void setActiveSeconds(long activeSeconds) {
-        this.activeSeconds = activeSeconds;
+        state.updateAndGet(current -> current.withReading(activeSeconds, current.lastReading()));
+    }
+
+    public Reading getLastReading() {
+        return state.get().lastReading();
+    }
+
+    public void setLastReading(Reading lastReading) {
+        state.updateAndGet(current -> current.withReading(current.activeSeconds(), lastReading));
     }
 
-    public Map<String, Object> getLastReading() {
-        return lastReading;
+    public void addReadingListener(Consumer<Reading> listener) {
+        readingListeners.add(listener);
     }
 
-    public void setLastReading(Map<String, Object> lastReading) {
-        this.lastReading = lastReading;
+    public void removeReadingListener(Consumer<Reading> listener) {
+        readingListeners.remove(listener);
     }
 
-    public void stop() {
+    public synchronized void stop() {
         running = false;
-        if (neighborGRPCClient != null) {
-            neighborGRPCClient.shutdown();
+        State retired = state.getAndUpdate(current -> current.withNeighbors(List.of(), new double[0]));
+        for (NeighborLink link : retired.neighborLinks()) {
+            link.close();
         }
     }
 
-    public ReadingGenerator(ServerClient serverClient, long sensorId, String csvPath, NeighborInfo neighbor) throws Exception {
+    public ReadingGenerator(ServerClient serverClient, ReadingUploader uploader, long sensorId, ReadingSource readings, NeighborInfo neighbor) {
+        this(serverClient, uploader, sensorId, Double.NaN, Double.NaN, readings, neighbor,
+                NeighborClientFactory.DEDICATED, null, new SensorConfig());
+    }
+
+    public ReadingGenerator(ServerClient serverClient, ReadingUploader uploader, Sensor self, ReadingSource readings,
+                            NeighborInfo neighbor, NeighborClientFactory neighborClientFactory,
+                            NeighborLocator locator, SensorConfig config) {
+        this(serverClient, uploader, self.getId(), self.getLatitude(), self.getLongitude(), readings, neighbor,
+                neighborClientFactory, locator, config);
+    }
+
+    private ReadingGenerator(ServerClient serverClient, ReadingUploader uploader, long sensorId, double latitude,
+                             double longitude, ReadingSource readings, NeighborInfo neighbor,
+                             NeighborClientFactory neighborClientFactory, NeighborLocator locator,
+                             SensorConfig config) {
         this.serverClient = serverClient;
+        this.uploader = uploader;
+        this.neighborClientFactory = neighborClientFactory;
+        this.locator = locator;
         this.sensorId = sensorId;
-        this.csvReadings = CsvReader.readCsv(csvPath);
-        this.neighbor = neighbor;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.readings = readings;
+        long[] windowMillis = new long[config.getHistoryWindowSeconds().length];
+        for (int i = 0; i < windowMillis.length; i++) {
+            windowMillis[i] = TimeUnit.SECONDS.toMillis(config.getHistoryWindowSeconds()[i]);
+        }
+        this.history = new ReadingHistory(config.getHistoryCapacity(), windowMillis);
+        this.aggregator = new WindowAggregator(
+                TimeUnit.SECONDS.toMillis(config.getAggregationWindowSeconds()),
+                config.getAggregationRetainWindows(),
+                config.getAggregationCompression(),
+                config.getAggregationQuantiles()
+        );
+        this.summariesOnly = config.isUploadSummariesOnly();
+        this.neighborCount = Math.max(1, config.getNeighborCount());
+        this.neighborMode = config.getNeighborMode();
+        this.neighborBudgetMillis = config.getNeighborBudgetMillis();
+        this.calibrationEngine = new CalibrationEngine(
+                config.getCalibrationStrategies(),
+                config.getCalibrationOwnWeight(),
+                config.getCalibrationIdwPower(),
+                config.getCalibrationTrimFraction(),
+                config.getCalibrationOutlierThreshold(),
+                neighborCount
+        );
+        this.reportFilter = config.getReportMode() == ReportMode.ON_CHANGE
+                ? new ReportFilter(config.getReportDeadbands(), config.getReportHeartbeatMillis())
+                : null;
+        String id = Long.toString(sensorId);
+        MetricsRegistry metrics = MetricsRegistry.DEFAULT;
+        this.processLatency = metrics.histogram("sensor_process_seconds",
+                "Time to fetch neighbor readings, calibrate and enqueue one sample.", "sensor", id);
+        this.calibratedSamples = metrics.counter("sensor_calibrations_total",
+                "Samples processed, by whether neighbor data was available for calibration.",
+                "sensor", id, "result", "calibrated");
+        this.uncalibratedSamples = metrics.counter("sensor_calibrations_total",
+                "Samples processed, by whether neighbor data was available for calibration.",
+                "sensor", id, "result", "skipped");
+        this.suppressed = metrics.counter("sensor_report_suppressed_total",
+                "Samples not uploaded because no channel left its dead-band.", "sensor", id);
+        this.processErrors = metrics.counter("sensor_process_errors_total",
+                "Samples that failed during calibration or upload.", "sensor", id);
+        this.refreshErrors = metrics.counter("sensor_neighbor_refresh_errors_total",
+                "Failed nearest neighbor lookups against the server.", "sensor", id);
         if (neighbor != null) {
-            neighborGRPCClient = new SensorGRPCClient(neighbor.getIp(), neighbor.getPort());
+            updateNeighbors(List.of(neighbor));
+        }
+    }
+
+    public Reading sample(long tick, long timestamp) {
+        int rowIndex = (int) (tick % readings.size());
+        Reading reading = readings.get(rowIndex, timestamp);
+        state.updateAndGet(current -> current.withReading(tick, reading));
+        history.add(reading);
+        for (Consumer<Reading> listener : readingListeners) {
+            listener.accept(reading);
         }
+        return reading;
     }
 
-    public void runLoop() throws Exception {
-        while (running) {
-            updateNeighborCounter++;
-            if (updateNeighborCounter >= updateNeighborEvery) {
-                updateNeighborCounter = 0;
-                refreshNeighbor();
+    public void process(Reading reading) {
+        if (!running) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            if (logger.isLoggable(Level.FINEST)) {
+                logger.finest(reading.toString());
             }
-            Map<String, Object> neighborReading = null;
-            boolean neighborAvailable = false;
-
-            if (neighbor != null && neighborGRPCClient != null) {
-                try {
-                    ReadingResponse neighborResp = neighborGRPCClient.getLastReading();
-                    Map<String, Object> neighborMap = convertToMap(neighborResp);
-
-                    if (neighborMap != null && neighbor.getId() != sensorId) {
-                        neighbor.setLastReading(neighborMap);
-                        neighborReading = neighborMap;
-                        neighborAvailable = true;
-                    } else {
-                        System.out.println("Skipping calibration: neighbor is self or invalid.");
-                    }
-                } catch (Exception e) {
-                    System.err.println("Neighbor unavailable: " + e.getMessage());
-                }
+            State current = state.get();
+            Reading[] neighborReadings = neighborReadings(current.neighborLinks());
+            Reading calibrated = calibrationEngine.calibrate(reading, neighborReadings,
+                    neighborMode == NeighborMode.FIRST ? null : current.neighborDistances());
+
+            if (calibrated != reading) {
+                reading = calibrated;
+                calibratedSamples.increment();
+            } else {
+                uncalibratedSamples.increment();
+                logger.finer("Skipping calibration: neighbor data not available.");
             }
 
-            Thread.sleep(1000);
-            activeSeconds++;
-
-            int rowIndex = (int) (activeSeconds % csvReadings.size());
-            Map<String, Object> reading = new HashMap<>(csvReadings.get(rowIndex));
-            System.out.println(reading);
-            lastReading = reading;
+            WindowSummary completed = aggregator.add(reading);
+            if (summariesOnly) {
+                if (completed != null) {
+                    uploader.offerSummary(completed);
+                }
+                return;
+            }
 
-            if (neighborAvailable && neighborReading != null) {
-                reading = CalibrationUtil.calibrate(reading, neighborReading);
-            } else {
-                System.out.println("Skipping calibration: neighbor data not available.");
+            if (reportFilter != null && !reportFilter.accept(reading)) {
+                suppressed.increment();
+                return;
             }
 
-            ReadingDto readingDto = new ReadingDto();
-            readingDto.setTemperature(getDouble(reading, "Temperature"));
-            readingDto.setPressure(getDouble(reading, "Pressure"));
-            readingDto.setHumidity(getDouble(reading, "Humidity"));
-            readingDto.setCo(getDouble(reading, "CO"));
-            readingDto.setSo2(getDouble(reading, "SO2"));
-
-            System.out.println("Sensor " + sensorId + " sending reading: " +
-                    "Temp=" + readingDto.getTemperature() +
-                    ", Pressure=" + readingDto.getPressure() +
-                    ", Humidity=" + readingDto.getHumidity() +
-                    ", CO=" + readingDto.getCo() +
-                    ", SO2=" + readingDto.getSo2());
-
-            serverClient.sendReading(sensorId, readingDto).execute();
-        }
-    }
-
-    private double getDouble(Map<String, Object> map, String key) {
-        Object value = map.get(key);
-        if (value instanceof Number) {
-            return ((Number) value).doubleValue();
-        } else if (value instanceof String) {
-            try {
-                return Double.parseDouble((String) value);
-            } catch (NumberFormatException e) {
-                return 0.0;
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine("Sensor " + sensorId + " sending reading: " +
+                        "Temp=" + reading.temperature() +
+                        ", Pressure=" + reading.pressure() +
+                        ", Humidity=" + reading.humidity() +
+                        ", CO=" + reading.co() +
+                        ", SO2=" + reading.so2());
             }
+
+            uploader.offer(reading);
+        } catch (RuntimeException e) {
+            processErrors.increment();
+            logger.warning("Sensor " + sensorId + " processing failed: " + e.getMessage());
+        } finally {
+            processLatency.observeNanos(System.nanoTime() - start);
         }
-        return 0.0;
     }
 
-    private Map<String, Object> convertToMap(ReadingResponse resp) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("Temperature", resp.getTemperature());
-        map.put("Pressure", resp.getPressure());
-        map.put("Humidity", resp.getHumidity());
-        map.put("CO", resp.getCo());
-        map.put("SO2", resp.getSo2());
-        return map;
+    private Reading[] neighborReadings(List<NeighborLink> links) {
+        if (links.isEmpty()) {
+            return NO_READINGS;
+        }
+
+        switch (neighborMode) {
+            case FIRST: {
+                Reading first = NeighborFetcher.first(links, neighborBudgetMillis).join();
+                return first == null ? NO_READINGS : new Reading[]{first};
+            }
+            case ALL:
+                return NeighborFetcher.all(links, neighborBudgetMillis).join();
+            default: {
+                Reading[] latest = neighborScratch;
+                if (latest.length != links.size()) {
+                    latest = neighborScratch = new Reading[links.size()];
+                }
+                for (int i = 0; i < latest.length; i++) {
+                    latest[i] = links.get(i).latest();
+                }
+                return latest;
+            }
+        }
     }
 
-    private void refreshNeighbor() {
+    public void refreshNeighbor() {
+        if (!running) {
+            return;
+        }
+        if (locator != null && locator.isAvailable() && !Double.isNaN(latitude)) {
+            long version = locator.getVersion();
+            if (version != locatorVersion) {
+                locatorVersion = version;
+                List<NeighborInfo> nearest = locator.nearest(sensorId, latitude, longitude, neighborCount);
+                if (!nearest.isEmpty()) {
+                    updateNeighbors(nearest);
+                }
+            }
+            return;
+        }
         try {
-            var nearestResponse = serverClient.getNearest(sensorId).execute();
-            if (nearestResponse.isSuccessful() && nearestResponse.body() != null) {
-                Sensor nearestSensor = nearestResponse.body();
-                if (nearestSensor.getId() != sensorId) {
-                    NeighborInfo newNeighbor = new NeighborInfo(
-                            nearestSensor.getId(),
-                            nearestSensor.getIp(),
-                            nearestSensor.getPort()
-                    );
-
-                    if (neighbor == null || neighbor.getId() != newNeighbor.getId()) {
-                        neighbor = newNeighbor;
-                        System.out.printf("Sensor %d updated neighbor: ID=%d, IP=%s, Port=%d%n",
-                                sensorId,
-                                neighbor.getId(),
-                                neighbor.getIp(),
-                                neighbor.getPort());
-
-                        if (neighborGRPCClient != null) {
-                            neighborGRPCClient.shutdown();
-                        }
-
-                        neighborGRPCClient = new SensorGRPCClient(neighbor.getIp(), neighbor.getPort());
-                    }
+            List<NeighborInfo> nearest = new ArrayList<>();
+            for (Sensor sensor : fetchNearest()) {
+                if (sensor.getId() != sensorId) {
+                    nearest.add(new NeighborInfo(sensor.getId(), sensor.getIp(), sensor.getPort(),
+                            sensor.getLatitude(), sensor.getLongitude()));
                 }
             }
+            if (!nearest.isEmpty()) {
+                updateNeighbors(nearest);
+            }
         } catch (Exception e) {
-            System.err.println("Failed to refresh neighbor: " + e.getMessage());
+            refreshErrors.increment();
+            logger.warning("Sensor " + sensorId + " failed to refresh neighbor: " + e.getMessage());
+        }
+    }
+
+    private List<Sensor> fetchNearest() throws Exception {
+        if (neighborCount > 1) {
+            var nearestResponse = serverClient.getNearest(sensorId, neighborCount).execute();
+            if (nearestResponse.isSuccessful() && nearestResponse.body() != null) {
+                return nearestResponse.body();
+            }
+        }
+        var nearestResponse = serverClient.getNearest(sensorId).execute();
+        if (nearestResponse.isSuccessful() && nearestResponse.body() != null) {
+            return List.of(nearestResponse.body());
+        }
+        return List.of();
+    }
+
+    private synchronized void updateNeighbors(List<NeighborInfo> nearest) {
+        if (!running) {
+            return;
+        }
+        List<NeighborLink> updated = new ArrayList<>(nearest.size());
+        List<NeighborLink> retired = new ArrayList<>(state.get().neighborLinks());
+        for (NeighborInfo info : nearest) {
+            if (info.getId() == sensorId || updated.size() >= neighborCount) {
+                continue;
+            }
+            NeighborLink link = null;
+            for (NeighborLink existing : retired) {
+                if (existing.getInfo().getId() == info.getId()) {
+                    link = existing;
+                    break;
+                }
+            }
+            if (link != null) {
+                retired.remove(link);
+            } else {
+                link = new NeighborLink(info, neighborClientFactory.create(info));
+                logger.info(String.format("Sensor %d updated neighbor: ID=%d, IP=%s, Port=%d",
+                        sensorId,
+                        info.getId(),
+                        info.getIp(),
+                        info.getPort()));
+            }
+            updated.add(link);
+        }
+        for (NeighborLink link : retired) {
+            link.close();
+        }
+        List<NeighborLink> links = List.copyOf(updated);
+        double[] distances = new double[links.size()];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = links.get(i).getInfo().distanceKm(latitude, longitude);
         }
+        state.updateAndGet(current -> current.withNeighbors(links, distances));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,169 @@
+package sensor;
+
+import sensor.dto.Reading;
+import sensor.metrics.Counter;
+import sensor.metrics.Histogram;
+import sensor.metrics.MetricsRegistry;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+public class SamplingScheduler {
+    private static final Logger logger = Logger.getLogger(SamplingScheduler.class.getName());
+
+    public enum MissedTickPolicy {
+        CATCH_UP,
+        SKIP
+    }
+
+    private final ReadingGenerator generator;
+    private final long periodNanos;
+    private final long neighborRefreshMillis;
+    private final MissedTickPolicy missedTickPolicy;
+    private final ScheduledExecutorService timer;
+    private final Executor calibrationStage;
+    private final ScheduledExecutorService ioStage;
+    private final boolean ownsExecutors;
+    private final Histogram lateness;
+    private final Counter skipped;
+
+    private ScheduledFuture<?> samplingTask;
+    private ScheduledFuture<?> refreshTask;
+    private long startNanos;
+    private long startEpochMillis;
+    private long nextTick;
+
+    private volatile long ticks;
+    private volatile long skippedTicks;
+    private volatile long lastLatenessNanos;
+    private volatile long maxLatenessNanos;
+    private volatile long totalLatenessNanos;
+
+    public SamplingScheduler(ReadingGenerator generator, long periodMillis, MissedTickPolicy missedTickPolicy,
+                             long neighborRefreshMillis) {
+        this(generator, periodMillis, missedTickPolicy, neighborRefreshMillis,
+                Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "sensor-sampling")),
+                Executors.newSingleThreadExecutor(r -> daemon(r, "sensor-calibration")),
+                Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "sensor-io")),
+                true);
+    }
+
+    public SamplingScheduler(ReadingGenerator generator, long periodMillis, MissedTickPolicy missedTickPolicy,
+                             long neighborRefreshMillis, ScheduledExecutorService timer, Executor calibrationStage,
+                             ScheduledExecutorService ioStage, boolean ownsExecutors) {
+        this.generator = generator;
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMillis);
+        this.neighborRefreshMillis = neighborRefreshMillis;
+        this.missedTickPolicy = missedTickPolicy;
+        this.timer = timer;
+        this.calibrationStage = calibrationStage;
+        this.ioStage = ioStage;
+        this.ownsExecutors = ownsExecutors;
+        String id = Long.toString(generator.getSensorId());
+        this.lateness = MetricsRegistry.DEFAULT.histogram("sensor_tick_lateness_seconds",
+                "Delay between a sampling tick's scheduled time and when it ran.", "sensor", id);
+        this.skipped = MetricsRegistry.DEFAULT.counter("sensor_ticks_skipped_total",
+                "Sampling ticks dropped by the SKIP missed tick policy.", "sensor", id);
+    }
+
+    public void start() {
+        start(0);
+    }
+
+    public void startWithRandomPhase() {
+        start(ThreadLocalRandom.current().nextLong(periodNanos));
+    }
+
+    private void start(long initialDelayNanos) {
+        startEpochMillis = System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(initialDelayNanos + periodNanos);
+        startNanos = System.nanoTime() + initialDelayNanos + periodNanos;
+        samplingTask = timer.scheduleAtFixedRate(this::onTick, initialDelayNanos + periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+        refreshTask = ioStage.scheduleWithFixedDelay(generator::refreshNeighbor,
+                neighborRefreshMillis, neighborRefreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (samplingTask != null) {
+            samplingTask.cancel(false);
+        }
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+        }
+        if (ownsExecutors) {
+            timer.shutdownNow();
+            ((ExecutorService) calibrationStage).shutdown();
+            ioStage.shutdownNow();
+        }
+    }
+
+    private void onTick() {
+        try {
+            long now = System.nanoTime();
+            long due = (now - startNanos) / periodNanos;
+            // After a stall scheduleAtFixedRate replays the missed executions back to back. Under SKIP the first
+            // of them jumps nextTick to the current period, so the rest of the burst is ahead of the wall clock
+            // and must not sample.
+            if (missedTickPolicy == MissedTickPolicy.SKIP && due < nextTick) {
+                return;
+            }
+            if (missedTickPolicy == MissedTickPolicy.SKIP && due > nextTick) {
+                skippedTicks += due - nextTick;
+                skipped.add(due - nextTick);
+                nextTick = due;
+            }
+
+            long scheduledNanos = startNanos + nextTick * periodNanos;
+            long timestamp = startEpochMillis + TimeUnit.NANOSECONDS.toMillis(nextTick * periodNanos);
+            recordLateness(now - scheduledNanos);
+
+            Reading sample = generator.sample(nextTick + 1, timestamp);
+            nextTick++;
+            calibrationStage.execute(() -> generator.process(sample));
+        } catch (RuntimeException e) {
+            logger.warning("Sensor " + generator.getSensorId() + " sampling failed: " + e.getMessage());
+        }
+    }
+
+    private void recordLateness(long latenessNanos) {
+        ticks++;
+        lastLatenessNanos = latenessNanos;
+        lateness.observeNanos(latenessNanos);
+        totalLatenessNanos += latenessNanos;
+        if (latenessNanos > maxLatenessNanos) {
+            maxLatenessNanos = latenessNanos;
+        }
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getSkippedTicks() {
+        return skippedTicks;
+    }
+
+    public long getLastLatenessNanos() {
+        return lastLatenessNanos;
+    }
+
+    public long getMaxLatenessNanos() {
+        return maxLatenessNanos;
+    }
+
+    public double getMeanLatenessNanos() {
+        long count = ticks;
+        return count == 0 ? 0.0 : (double) totalLatenessNanos / count;
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread thread = new Thread(r, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -1,108 +1,349 @@
 package sensor;
 
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import retrofit2.Response;
+import sensor.client.ChannelPool;
+import sensor.client.NeighborDirectory;
+import sensor.client.NeighborLocator;
+import sensor.client.ReadingSpool;
+import sensor.client.ReadingStreamUploader;
+import sensor.client.ReadingUploader;
 import sensor.client.ServerClient;
+import sensor.gossip.GossipMembership;
+import sensor.metrics.MetricsHttpServer;
+import sensor.metrics.MetricsRegistry;
 import sensor.server.SensorGRPCServer;
+import sensor.utils.ColumnarReadingStore;
 import sensor.utils.NeighborInfo;
+import sensor.utils.NettyTransport;
+import sensor.utils.ReadingSource;
+import sensor.utils.StreamingReadingSource;
 
 import java.io.IOException;
 import java.net.ServerSocket;
+import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class Sensor {
+    private static final Logger logger = Logger.getLogger(Sensor.class.getName());
+    private static final Logger rootLogger = Logger.getLogger("sensor");
+
     private final double latitude;
     private final double longitude;
     private final int port;
     private long id;
     private NeighborInfo neighbor;
     private String ip;
+    private transient SensorConfig config;
 
 
     public Sensor(double latitude, double longitude, int grpcPort) {
+        this(latitude, longitude, grpcPort, SensorConfig.fromSystemProperties());
+    }
+
+    public Sensor(double latitude, double longitude, int grpcPort, SensorConfig config) {
         this.latitude = latitude;
         this.longitude = longitude;
         this.port = grpcPort;
         this.id = -1;
         this.neighbor = null;
         this.ip = "127.0.0.1";
+        this.config = config;
     }
 
+    // Binding the gRPC port, loading the dataset and registering with the server run concurrently; everything
+    // after that needs the sensor id. Each component registers its stop step as it comes up, so the lifecycle
+    // shuts down in reverse start order within one deadline.
     public void start() throws Exception {
 
-        System.out.printf("Sensor started at [lat=%.5f, lon=%.5f] using gRPC port %d%n", latitude, longitude, port);
+        logger.info(String.format("Sensor started at [lat=%.5f, lon=%.5f] using gRPC port %d", latitude, longitude, port));
 
-        ServerClient serverClient = ServerClient.create("http://localhost:8080");
-
-        Map<String, Object> registrationData = new HashMap<>();
-        registrationData.put("latitude", latitude);
-        registrationData.put("longitude", longitude);
-        registrationData.put("port", port);
-        registrationData.put("ip", "127.0.0.1");
+        SensorLifecycle lifecycle = new SensorLifecycle(config.getShutdownTimeoutMillis());
+        lifecycle.installShutdownHook();
+        try {
+            start(lifecycle);
+        } catch (Exception e) {
+            logger.severe("Sensor failed to start: " + e.getMessage());
+            lifecycle.stop();
+            throw e;
+        }
+        lifecycle.awaitStopped();
+    }
 
-        Map<String, Object> response = serverClient.registerSensor(registrationData).execute().body();
+    private void start(SensorLifecycle lifecycle) throws Exception {
+        ServerClient serverClient = ServerClient.create(config.getServerUrl());
 
-        assert response != null;
-        long sensorId = ((Number) response.get("id")).longValue();
-        this.id = sensorId;
-        System.out.println("Registered sensor with ID: " + sensorId);
+        ExecutorService startup = Executors.newFixedThreadPool(2, r -> {
+            Thread thread = new Thread(r, "sensor-startup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sensorId;
+        ReadingSource readings;
+        SensorGRPCServer grpcServer;
+        try {
+            Future<Long> registration = startup.submit(() -> registerWithRetry(serverClient));
+            Future<ReadingSource> dataset = startup.submit(() -> openReadings(config));
 
-        var nearestResponse = serverClient.getNearest(sensorId).execute();
-        if (nearestResponse.isSuccessful() && nearestResponse.body() != null) {
-            Sensor nearestSensor = nearestResponse.body();
-            if (nearestSensor.getId() != sensorId) {
-                neighbor = new NeighborInfo(
-                        nearestSensor.getId(),
-                        nearestSensor.getIp(),
-                        nearestSensor.getPort()
-                );
-                System.out.printf("Sensor %d has neighbor: ID=%d, IP=%s, Port=%d%n",
-                        sensorId,
-                        neighbor.getId(),
-                        neighbor.getIp(),
-                        neighbor.getPort());
+            MetricsHttpServer metricsServer = startMetrics(config);
+            if (metricsServer != null) {
+                lifecycle.register("metrics server", timeout -> metricsServer.stop());
             }
+            grpcServer = new SensorGRPCServer(port, config);
+            grpcServer.start();
+            lifecycle.register("gRPC server", grpcServer::stop);
+
+            sensorId = await(registration);
+            readings = await(dataset);
+        } finally {
+            startup.shutdownNow();
+        }
+        logger.info("Registered sensor with ID: " + sensorId);
+
+        NeighborDirectory directory = null;
+        if (config.isNeighborDirectory() && !config.isGossipEnabled()) {
+            NeighborDirectory neighborDirectory = new NeighborDirectory(serverClient,
+                    config.getNeighborDirectoryRevalidateMillis());
+            neighborDirectory.start();
+            lifecycle.register("neighbor directory", timeout -> neighborDirectory.close());
+            directory = neighborDirectory;
+        }
+
+        neighbor = config.isGossipEnabled() ? null : findNeighbor(serverClient, directory);
+        if (neighbor != null) {
+            logger.info(String.format("Sensor %d has neighbor: ID=%d, IP=%s, Port=%d",
+                    sensorId,
+                    neighbor.getId(),
+                    neighbor.getIp(),
+                    neighbor.getPort()));
         } else {
-            System.out.println("No neighbor found at this moment.");
+            logger.info("No neighbor found at this moment.");
         }
 
-        ReadingGenerator readingGenerator = new ReadingGenerator(
+        ReadingStreamUploader collectorStream = openCollectorStream(config, null);
+        if (collectorStream != null) {
+            lifecycle.register("collector stream",
+                    timeout -> collectorStream.close(Math.min(timeout, config.getUploadDrainTimeoutMillis())));
+        }
+        ReadingUploader uploader = new ReadingUploader(
                 serverClient,
                 sensorId,
-                "C:\\Users\\mario\\Projects\\Sensor\\src\\main\\java\\data\\readings.csv",
-                neighbor
+                config.getUploadQueueCapacity(),
+                config.getUploadBatchSize(),
+                config.getUploadFlushIntervalMillis(),
+                config.getUploadBlockTimeoutMillis(),
+                config.getUploadOverflowPolicy(),
+                openSpool(config, sensorId)
         );
-        SensorGRPCServer grpcServer = new SensorGRPCServer(port, readingGenerator);
-        grpcServer.start();
+        uploader.setDeltaEncoding(config.isUploadDeltaEncoding());
+        uploader.setUploadFormat(config.getUploadFormat());
+        uploader.setStream(collectorStream);
+        uploader.start();
+        lifecycle.register("uploader", timeout -> uploader.close(Math.min(timeout, config.getUploadDrainTimeoutMillis())));
 
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            System.out.println("Shutting down sensor " + sensorId);
-            try {
-                readingGenerator.stop();
-                grpcServer.stop();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+        ChannelPool channelPool = new ChannelPool(
+                config.getChannelIdleTimeoutMillis(),
+                config.getChannelKeepAliveTimeMillis(),
+                config.getChannelKeepAliveTimeoutMillis()
+        );
+        lifecycle.register("channel pool", timeout -> channelPool.close());
+
+        GossipMembership membership = null;
+        if (config.isGossipEnabled()) {
+            GossipMembership gossip = new GossipMembership(
+                    new NeighborInfo(sensorId, ip, port, latitude, longitude),
+                    GossipMembership.parseSeeds(config.getGossipSeeds()),
+                    channelPool::client,
+                    config
+            );
+            lifecycle.register("gossip", timeout -> gossip.close());
+            membership = gossip;
+        }
+
+        ReadingGenerator readingGenerator = new ReadingGenerator(
+                serverClient,
+                uploader,
+                this,
+                readings,
+                neighbor,
+                channelPool::client,
+                membership != null ? membership : directory,
+                config
+        );
+        lifecycle.register("reading generator", timeout -> readingGenerator.stop());
+        grpcServer.addSensor(readingGenerator, membership);
+        if (membership != null) {
+            membership.start();
+        }
+
+        SamplingScheduler scheduler = new SamplingScheduler(
+                readingGenerator,
+                config.getSamplingPeriodMillis(),
+                config.getMissedTickPolicy(),
+                config.getNeighborRefreshMillis()
+        );
+        lifecycle.register("sampling scheduler", timeout -> scheduler.stop());
+
+        scheduler.start();
+    }
+
+    static ReadingSource openReadings(SensorConfig config) throws Exception {
+        return config.isCsvStreaming()
+                ? StreamingReadingSource.open(config.getCsvPath(), config.getCsvStreamingWindowRows())
+                : ColumnarReadingStore.open(config.getCsvPath());
+    }
+
+    static <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    static ReadingSpool openSpool(SensorConfig config, long sensorId) throws IOException {
+        if (config.getSpoolDir() == null || config.getSpoolDir().isEmpty()) {
+            return null;
+        }
+        return new ReadingSpool(
+                Paths.get(config.getSpoolDir(), Long.toString(sensorId)),
+                config.getSpoolSegmentBytes(),
+                config.getSpoolMaxBytes(),
+                config.getSpoolFsyncPolicy(),
+                config.getSpoolFsyncIntervalMillis(),
+                config.getSpoolCodec().codec()
+        );
+    }
+
+    // Opens the shared ReportReadings stream when a collector is configured; on a host the channel runs on the
+    // host's event loops like every other client channel.
+    static ReadingStreamUploader openCollectorStream(SensorConfig config, EventLoopGroup eventLoopGroup) {
+        if (config.getUploadCollectorTarget() == null || config.getUploadCollectorTarget().isEmpty()) {
+            return null;
+        }
+        NettyChannelBuilder builder = NettyChannelBuilder.forTarget(config.getUploadCollectorTarget()).usePlaintext();
+        if (eventLoopGroup != null) {
+            builder.eventLoopGroup(eventLoopGroup).channelType(NettyTransport.channelType(eventLoopGroup));
+        }
+        ReadingStreamUploader stream = new ReadingStreamUploader(builder.build(), config.getUploadCollectorCapacity());
+        stream.start();
+        logger.info("Uploading readings over ReportReadings stream to " + config.getUploadCollectorTarget());
+        return stream;
+    }
+
+    static MetricsHttpServer startMetrics(SensorConfig config) throws IOException {
+        if (config.getMetricsPort() <= 0) {
+            return null;
+        }
+        MetricsHttpServer metricsServer = new MetricsHttpServer(config.getMetricsPort(), MetricsRegistry.DEFAULT);
+        metricsServer.start();
+        return metricsServer;
+    }
+
+    static void configureLogging(SensorConfig config) {
+        if (System.getProperty("java.util.logging.SimpleFormatter.format") == null) {
+            System.setProperty("java.util.logging.SimpleFormatter.format", "%1$tT %4$s %3$s - %5$s%6$s%n");
+        }
+        Level level = Level.parse(config.getLogLevel());
+        rootLogger.setLevel(level);
+        for (Handler handler : Logger.getLogger("").getHandlers()) {
+            if (handler.getLevel().intValue() > level.intValue()) {
+                handler.setLevel(level);
             }
-        }));
+        }
+    }
 
-        new Thread(() -> {
+    // Retries registration with exponential backoff and full jitter, so a fleet restarted together does not
+    // hit the server in lockstep; gives up after registerMaxAttempts.
+    public long registerWithRetry(ServerClient serverClient) throws IOException, InterruptedException {
+        long backoff = config.getRegisterBackoffMillis();
+        for (int attempt = 1; ; attempt++) {
             try {
-                readingGenerator.runLoop();
-            } catch (Exception e) {
-                e.printStackTrace();
+                return register(serverClient);
+            } catch (IOException e) {
+                if (attempt >= config.getRegisterMaxAttempts()) {
+                    throw new IOException("Registration failed after " + attempt + " attempts", e);
+                }
+                long delay = ThreadLocalRandom.current().nextLong(backoff + 1);
+                logger.warning("Registration attempt " + attempt + " failed (" + e.getMessage() + "), retrying in "
+                        + delay + " ms");
+                Thread.sleep(delay);
+                backoff = Math.min(backoff * 2, config.getRegisterMaxBackoffMillis());
             }
-        }).start();
+        }
+    }
 
-        grpcServer.blockUntilShutdown();
+    public long register(ServerClient serverClient) throws IOException {
+        Map<String, Object> registrationData = new HashMap<>();
+        registrationData.put("latitude", latitude);
+        registrationData.put("longitude", longitude);
+        registrationData.put("port", port);
+        registrationData.put("ip", ip);
+
+        Response<Map<String, Object>> response = serverClient.registerSensor(registrationData).execute();
+        if (!response.isSuccessful() || response.body() == null || !(response.body().get("id") instanceof Number)) {
+            throw new IOException("Registration rejected: HTTP " + response.code());
+        }
+        this.id = ((Number) response.body().get("id")).longValue();
+        return id;
+    }
 
+    public NeighborInfo findNeighbor(ServerClient serverClient, NeighborLocator locator) throws IOException {
+        if (locator != null && locator.isAvailable()) {
+            List<NeighborInfo> nearest = locator.nearest(id, latitude, longitude, 1);
+            return nearest.isEmpty() ? null : nearest.get(0);
+        }
+        return findNeighbor(serverClient);
+    }
+
+    public NeighborInfo findNeighbor(ServerClient serverClient) throws IOException {
+        var nearestResponse = serverClient.getNearest(id).execute();
+        if (nearestResponse.isSuccessful() && nearestResponse.body() != null) {
+            Sensor nearestSensor = nearestResponse.body();
+            if (nearestSensor.getId() != id) {
+                return new NeighborInfo(
+                        nearestSensor.getId(),
+                        nearestSensor.getIp(),
+                        nearestSensor.getPort(),
+                        nearestSensor.getLatitude(),
+                        nearestSensor.getLongitude()
+                );
+            }
+        }
+        return null;
     }
 
     public static void main(String[] args) throws Exception {
-        System.setProperty("io.grpc.netty.shaded.io.netty.transport.noNative", "true");
+        List<String> arguments = SensorConfig.applyOptions(args);
+        SensorConfig config = SensorConfig.fromSystemProperties();
+        if (!config.isGrpcNativeTransport()) {
+            System.setProperty("io.grpc.netty.shaded.io.netty.transport.noNative", "true");
+        }
+        configureLogging(config);
+        if (!arguments.isEmpty() && arguments.get(0).equals("--host")) {
+            int count = arguments.size() > 1 ? Integer.parseInt(arguments.get(1)) : 100;
+            new SensorHost(count, config).start();
+            return;
+        }
         double latitude = 45.75 + Math.random() * 0.1;
         double longitude = 15.87 + Math.random() * 0.13;
         int grpcPort = getAvailablePort();
 
-        Sensor sensor = new Sensor(latitude, longitude, grpcPort);
+        Sensor sensor = new Sensor(latitude, longitude, grpcPort, config);
         sensor.start();
     }
 
@@ -0,0 +1,834 @@
+package sensor;
+
+import sensor.client.ReadingSpool;
+import sensor.client.ReadingUploader;
+import sensor.server.SensorGRPCServer;
+import sensor.utils.CalibrationEngine;
+import sensor.utils.ReadingCodec;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+public class SensorConfig {
+    private String serverUrl = "http://localhost:8080";
+    private String csvPath = "src/main/java/data/readings.csv";
+    private boolean csvStreaming = false;
+    private int csvStreamingWindowRows = 4096;
+    private long samplingPeriodMillis = 1000;
+    private SamplingScheduler.MissedTickPolicy missedTickPolicy = SamplingScheduler.MissedTickPolicy.CATCH_UP;
+    private long neighborRefreshMillis = 10000;
+    private int neighborCount = 1;
+    private ReadingGenerator.NeighborMode neighborMode = ReadingGenerator.NeighborMode.STREAM;
+    private long neighborBudgetMillis = 200;
+    private boolean neighborDirectory = true;
+    private long neighborDirectoryRevalidateMillis = 30000;
+    private boolean gossipEnabled = false;
+    private String gossipSeeds = "";
+    private long gossipIntervalMillis = 1000;
+    private long gossipProbeTimeoutMillis = 200;
+    private int gossipIndirectProbes = 3;
+    private long gossipSuspicionMillis = 5000;
+    private long gossipDeadRetentionMillis = 30000;
+    private int gossipMaxMembers = 32;
+    private CalibrationEngine.Strategy[] calibrationStrategies = {
+            CalibrationEngine.Strategy.IDW,
+            CalibrationEngine.Strategy.IDW,
+            CalibrationEngine.Strategy.IDW,
+            CalibrationEngine.Strategy.IDW,
+            CalibrationEngine.Strategy.IDW
+    };
+    private double calibrationOwnWeight = 0.5;
+    private double calibrationIdwPower = 2.0;
+    private double calibrationTrimFraction = 0.2;
+    private double calibrationOutlierThreshold = 3.0;
+    private long channelIdleTimeoutMillis = 60000;
+    private long channelKeepAliveTimeMillis = 30000;
+    private long channelKeepAliveTimeoutMillis = 10000;
+    private int uploadQueueCapacity = 1000;
+    private int uploadBatchSize = 50;
+    private long uploadFlushIntervalMillis = 5000;
+    private long uploadBlockTimeoutMillis = 100;
+    private ReadingUploader.OverflowPolicy uploadOverflowPolicy = ReadingUploader.OverflowPolicy.DROP_OLDEST;
+    private long uploadDrainTimeoutMillis = 5000;
+    private ReadingGenerator.ReportMode reportMode = ReadingGenerator.ReportMode.ALL;
+    private double[] reportDeadbands = {0.0, 0.0, 0.0, 0.0, 0.0};
+    private long reportHeartbeatMillis = 60000;
+    private boolean uploadDeltaEncoding = false;
+    private ReadingUploader.UploadFormat uploadFormat = ReadingUploader.UploadFormat.JSON;
+    private String uploadCollectorTarget = "";
+    private int uploadCollectorCapacity = 100_000;
+    private String spoolDir = "spool";
+    private long spoolSegmentBytes = 1024 * 1024;
+    private long spoolMaxBytes = 64L * 1024 * 1024;
+    private ReadingSpool.FsyncPolicy spoolFsyncPolicy = ReadingSpool.FsyncPolicy.INTERVAL;
+    private long spoolFsyncIntervalMillis = 1000;
+    private ReadingCodec.Type spoolCodec = ReadingCodec.Type.GORILLA;
+    private int hostGrpcPort = 50051;
+    private int hostEventLoopThreads = 0;
+    private int hostSchedulerThreads = 4;
+    private int hostUploadThreads = 8;
+    private int hostHttpConnections = 32;
+    private SensorGRPCServer.ServerExecutor grpcServerExecutor = SensorGRPCServer.ServerExecutor.DEFAULT;
+    private int grpcServerThreads = 4;
+    private boolean grpcNativeTransport = true;
+    private int grpcMaxConcurrentCallsPerConnection = 0;
+    private int grpcFlowControlWindowBytes = 0;
+    private long grpcKeepAliveTimeMillis = 0;
+    private long grpcKeepAliveTimeoutMillis = 20000;
+    private int historyCapacity = 600;
+    private long[] historyWindowSeconds = {10, 60, 300};
+    private long aggregationWindowSeconds = 60;
+    private int aggregationRetainWindows = 15;
+    private double aggregationCompression = 50;
+    private double[] aggregationQuantiles = {0.5, 0.9, 0.99};
+    private boolean uploadSummariesOnly = false;
+    private int metricsPort = 0;
+    private String logLevel = "INFO";
+    private int registerMaxAttempts = 10;
+    private long registerBackoffMillis = 500;
+    private long registerMaxBackoffMillis = 30000;
+    private long shutdownTimeoutMillis = 15000;
+
+    // Applies a properties file (--config <file>, or -Dsensor.config) and --key=value options to the system
+    // properties read by fromSystemProperties(). Option keys may omit the "sensor." prefix. Command-line options
+    // override -D flags, which override the file. Returns the arguments that are not options.
+    public static List<String> applyOptions(String[] args) throws IOException {
+        List<String> remaining = new ArrayList<>();
+        List<String> options = new ArrayList<>();
+        String configFile = System.getProperty("sensor.config");
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--config") && i + 1 < args.length) {
+                configFile = args[++i];
+            } else if (args[i].startsWith("--config=")) {
+                configFile = args[i].substring("--config=".length());
+            } else if (args[i].startsWith("--") && args[i].indexOf('=') > 2) {
+                options.add(args[i].substring(2));
+            } else {
+                remaining.add(args[i]);
+            }
+        }
+        if (configFile != null) {
+            Properties file = new Properties();
+            try (Reader reader = Files.newBufferedReader(Paths.get(configFile))) {
+                file.load(reader);
+            }
+            for (String key : file.stringPropertyNames()) {
+                String name = key.startsWith("sensor.") ? key : "sensor." + key;
+                if (System.getProperty(name) == null) {
+                    System.setProperty(name, file.getProperty(key).trim());
+                }
+            }
+        }
+        for (String option : options) {
+            int split = option.indexOf('=');
+            String key = option.substring(0, split);
+            System.setProperty(key.startsWith("sensor.") ? key : "sensor." + key, option.substring(split + 1));
+        }
+        return remaining;
+    }
+
+    public static SensorConfig fromSystemProperties() {
+        SensorConfig config = new SensorConfig();
+        config.serverUrl = System.getProperty("sensor.serverUrl", config.serverUrl);
+        config.csvPath = System.getProperty("sensor.csvPath", config.csvPath);
+        config.csvStreaming = Boolean.parseBoolean(
+                System.getProperty("sensor.csv.streaming", String.valueOf(config.csvStreaming)));
+        config.csvStreamingWindowRows = Integer.getInteger("sensor.csv.streamingWindowRows", config.csvStreamingWindowRows);
+        config.samplingPeriodMillis = Long.getLong("sensor.sampling.periodMillis", config.samplingPeriodMillis);
+        config.missedTickPolicy = SamplingScheduler.MissedTickPolicy.valueOf(
+                System.getProperty("sensor.sampling.missedTickPolicy", config.missedTickPolicy.name()));
+        config.neighborRefreshMillis = Long.getLong("sensor.neighbor.refreshMillis", config.neighborRefreshMillis);
+        config.neighborCount = Integer.getInteger("sensor.neighbor.count", config.neighborCount);
+        config.neighborMode = ReadingGenerator.NeighborMode.valueOf(
+                System.getProperty("sensor.neighbor.mode", config.neighborMode.name()));
+        config.neighborBudgetMillis = Long.getLong("sensor.neighbor.budgetMillis", config.neighborBudgetMillis);
+        config.neighborDirectory = Boolean.parseBoolean(
+                System.getProperty("sensor.neighbor.directory", Boolean.toString(config.neighborDirectory)));
+        config.neighborDirectoryRevalidateMillis = Long.getLong("sensor.neighbor.directoryRevalidateMillis",
+                config.neighborDirectoryRevalidateMillis);
+        config.gossipEnabled = Boolean.parseBoolean(
+                System.getProperty("sensor.gossip.enabled", Boolean.toString(config.gossipEnabled)));
+        config.gossipSeeds = System.getProperty("sensor.gossip.seeds", config.gossipSeeds);
+        config.gossipIntervalMillis = Long.getLong("sensor.gossip.intervalMillis", config.gossipIntervalMillis);
+        config.gossipProbeTimeoutMillis = Long.getLong("sensor.gossip.probeTimeoutMillis", config.gossipProbeTimeoutMillis);
+        config.gossipIndirectProbes = Integer.getInteger("sensor.gossip.indirectProbes", config.gossipIndirectProbes);
+        config.gossipSuspicionMillis = Long.getLong("sensor.gossip.suspicionMillis", config.gossipSuspicionMillis);
+        config.gossipDeadRetentionMillis = Long.getLong("sensor.gossip.deadRetentionMillis", config.gossipDeadRetentionMillis);
+        config.gossipMaxMembers = Integer.getInteger("sensor.gossip.maxMembers", config.gossipMaxMembers);
+        String defaultStrategy = System.getProperty("sensor.calibration.strategy");
+        String[] channels = {"temperature", "pressure", "humidity", "co", "so2"};
+        for (int c = 0; c < channels.length; c++) {
+            String strategy = System.getProperty("sensor.calibration.strategy." + channels[c], defaultStrategy);
+            if (strategy != null) {
+                config.calibrationStrategies[c] = CalibrationEngine.Strategy.valueOf(strategy);
+            }
+        }
+        config.calibrationOwnWeight = doubleProperty("sensor.calibration.ownWeight", config.calibrationOwnWeight);
+        config.calibrationIdwPower = doubleProperty("sensor.calibration.idwPower", config.calibrationIdwPower);
+        config.calibrationTrimFraction = doubleProperty("sensor.calibration.trimFraction", config.calibrationTrimFraction);
+        config.calibrationOutlierThreshold = doubleProperty("sensor.calibration.outlierThreshold", config.calibrationOutlierThreshold);
+        config.channelIdleTimeoutMillis = Long.getLong("sensor.channel.idleTimeoutMillis", config.channelIdleTimeoutMillis);
+        config.channelKeepAliveTimeMillis = Long.getLong("sensor.channel.keepAliveTimeMillis", config.channelKeepAliveTimeMillis);
+        config.channelKeepAliveTimeoutMillis = Long.getLong("sensor.channel.keepAliveTimeoutMillis", config.channelKeepAliveTimeoutMillis);
+        config.uploadQueueCapacity = Integer.getInteger("sensor.upload.queueCapacity", config.uploadQueueCapacity);
+        config.uploadBatchSize = Integer.getInteger("sensor.upload.batchSize", config.uploadBatchSize);
+        config.uploadFlushIntervalMillis = Long.getLong("sensor.upload.flushIntervalMillis", config.uploadFlushIntervalMillis);
+        config.uploadBlockTimeoutMillis = Long.getLong("sensor.upload.blockTimeoutMillis", config.uploadBlockTimeoutMillis);
+        config.uploadOverflowPolicy = ReadingUploader.OverflowPolicy.valueOf(
+                System.getProperty("sensor.upload.overflowPolicy", config.uploadOverflowPolicy.name()));
+        config.uploadDrainTimeoutMillis = Long.getLong("sensor.upload.drainTimeoutMillis", config.uploadDrainTimeoutMillis);
+        config.reportMode = ReadingGenerator.ReportMode.valueOf(
+                System.getProperty("sensor.report.mode", config.reportMode.name()));
+        double defaultDeadband = doubleProperty("sensor.report.deadband", 0.0);
+        for (int c = 0; c < channels.length; c++) {
+            config.reportDeadbands[c] = doubleProperty("sensor.report.deadband." + channels[c], defaultDeadband);
+        }
+        config.reportHeartbeatMillis = Long.getLong("sensor.report.heartbeatMillis", config.reportHeartbeatMillis);
+        config.uploadDeltaEncoding = Boolean.parseBoolean(
+                System.getProperty("sensor.upload.deltaEncoding", Boolean.toString(config.uploadDeltaEncoding)));
+        config.uploadFormat = ReadingUploader.UploadFormat.valueOf(
+                System.getProperty("sensor.upload.format", config.uploadFormat.name()));
+        config.uploadCollectorTarget = System.getProperty("sensor.upload.collector.target", config.uploadCollectorTarget);
+        config.uploadCollectorCapacity = Integer.getInteger("sensor.upload.collector.capacity", config.uploadCollectorCapacity);
+        config.spoolDir = System.getProperty("sensor.spool.dir", config.spoolDir);
+        config.spoolSegmentBytes = Long.getLong("sensor.spool.segmentBytes", config.spoolSegmentBytes);
+        config.spoolMaxBytes = Long.getLong("sensor.spool.maxBytes", config.spoolMaxBytes);
+        config.spoolFsyncPolicy = ReadingSpool.FsyncPolicy.valueOf(
+                System.getProperty("sensor.spool.fsyncPolicy", config.spoolFsyncPolicy.name()));
+        config.spoolFsyncIntervalMillis = Long.getLong("sensor.spool.fsyncIntervalMillis", config.spoolFsyncIntervalMillis);
+        config.spoolCodec = ReadingCodec.Type.valueOf(System.getProperty("sensor.spool.codec", config.spoolCodec.name()));
+        config.hostGrpcPort = Integer.getInteger("sensor.host.grpcPort", config.hostGrpcPort);
+        config.hostEventLoopThreads = Integer.getInteger("sensor.host.eventLoopThreads", config.hostEventLoopThreads);
+        config.hostSchedulerThreads = Integer.getInteger("sensor.host.schedulerThreads", config.hostSchedulerThreads);
+        config.hostUploadThreads = Integer.getInteger("sensor.host.uploadThreads", config.hostUploadThreads);
+        config.hostHttpConnections = Integer.getInteger("sensor.host.httpConnections", config.hostHttpConnections);
+        config.grpcServerExecutor = SensorGRPCServer.ServerExecutor.valueOf(
+                System.getProperty("sensor.grpc.server.executor", config.grpcServerExecutor.name()));
+        config.grpcServerThreads = Integer.getInteger("sensor.grpc.server.threads", config.grpcServerThreads);
+        config.grpcNativeTransport = Boolean.parseBoolean(
+                System.getProperty("sensor.grpc.nativeTransport", String.valueOf(config.grpcNativeTransport)));
+        config.grpcMaxConcurrentCallsPerConnection = Integer.getInteger(
+                "sensor.grpc.server.maxConcurrentCallsPerConnection", config.grpcMaxConcurrentCallsPerConnection);
+        config.grpcFlowControlWindowBytes = Integer.getInteger(
+                "sensor.grpc.server.flowControlWindowBytes", config.grpcFlowControlWindowBytes);
+        config.grpcKeepAliveTimeMillis = Long.getLong(
+                "sensor.grpc.server.keepAliveTimeMillis", config.grpcKeepAliveTimeMillis);
+        config.grpcKeepAliveTimeoutMillis = Long.getLong(
+                "sensor.grpc.server.keepAliveTimeoutMillis", config.grpcKeepAliveTimeoutMillis);
+        config.historyCapacity = Integer.getInteger("sensor.history.capacity", config.historyCapacity);
+        String windows = System.getProperty("sensor.history.windowSeconds");
+        if (windows != null) {
+            String[] parts = windows.split(",");
+            config.historyWindowSeconds = new long[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                config.historyWindowSeconds[i] = Long.parseLong(parts[i].trim());
+            }
+        }
+        config.aggregationWindowSeconds = Long.getLong("sensor.aggregation.windowSeconds", config.aggregationWindowSeconds);
+        config.aggregationRetainWindows = Integer.getInteger("sensor.aggregation.retainWindows", config.aggregationRetainWindows);
+        config.aggregationCompression = doubleProperty("sensor.aggregation.compression", config.aggregationCompression);
+        String quantiles = System.getProperty("sensor.aggregation.quantiles");
+        if (quantiles != null) {
+            String[] parts = quantiles.split(",");
+            config.aggregationQuantiles = new double[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                config.aggregationQuantiles[i] = Double.parseDouble(parts[i].trim());
+            }
+        }
+        config.uploadSummariesOnly = Boolean.parseBoolean(
+                System.getProperty("sensor.upload.summariesOnly", Boolean.toString(config.uploadSummariesOnly)));
+        config.metricsPort = Integer.getInteger("sensor.metrics.port", config.metricsPort);
+        config.logLevel = System.getProperty("sensor.log.level", config.logLevel);
+        config.registerMaxAttempts = Integer.getInteger("sensor.register.maxAttempts", config.registerMaxAttempts);
+        config.registerBackoffMillis = Long.getLong("sensor.register.backoffMillis", config.registerBackoffMillis);
+        config.registerMaxBackoffMillis = Long.getLong("sensor.register.maxBackoffMillis", config.registerMaxBackoffMillis);
+        config.shutdownTimeoutMillis = Long.getLong("sensor.shutdown.timeoutMillis", config.shutdownTimeoutMillis);
+        return config;
+    }
+
+    private static double doubleProperty(String key, double defaultValue) {
+        String value = System.getProperty(key);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    public String getServerUrl() {
+        return serverUrl;
+    }
+
+    public void setServerUrl(String serverUrl) {
+        this.serverUrl = serverUrl;
+    }
+
+    public String getCsvPath() {
+        return csvPath;
+    }
+
+    public void setCsvPath(String csvPath) {
+        this.csvPath = csvPath;
+    }
+
+    public boolean isCsvStreaming() {
+        return csvStreaming;
+    }
+
+    public void setCsvStreaming(boolean csvStreaming) {
+        this.csvStreaming = csvStreaming;
+    }
+
+    public int getCsvStreamingWindowRows() {
+        return csvStreamingWindowRows;
+    }
+
+    public void setCsvStreamingWindowRows(int csvStreamingWindowRows) {
+        this.csvStreamingWindowRows = csvStreamingWindowRows;
+    }
+
+    public long getSamplingPeriodMillis() {
+        return samplingPeriodMillis;
+    }
+
+    public void setSamplingPeriodMillis(long samplingPeriodMillis) {
+        this.samplingPeriodMillis = samplingPeriodMillis;
+    }
+
+    public SamplingScheduler.MissedTickPolicy getMissedTickPolicy() {
+        return missedTickPolicy;
+    }
+
+    public void setMissedTickPolicy(SamplingScheduler.MissedTickPolicy missedTickPolicy) {
+        this.missedTickPolicy = missedTickPolicy;
+    }
+
+    public long getNeighborRefreshMillis() {
+        return neighborRefreshMillis;
+    }
+
+    public void setNeighborRefreshMillis(long neighborRefreshMillis) {
+        this.neighborRefreshMillis = neighborRefreshMillis;
+    }
+
+    public int getNeighborCount() {
+        return neighborCount;
+    }
+
+    public void setNeighborCount(int neighborCount) {
+        this.neighborCount = neighborCount;
+    }
+
+    public ReadingGenerator.NeighborMode getNeighborMode() {
+        return neighborMode;
+    }
+
+    public void setNeighborMode(ReadingGenerator.NeighborMode neighborMode) {
+        this.neighborMode = neighborMode;
+    }
+
+    public long getNeighborBudgetMillis() {
+        return neighborBudgetMillis;
+    }
+
+    public void setNeighborBudgetMillis(long neighborBudgetMillis) {
+        this.neighborBudgetMillis = neighborBudgetMillis;
+    }
+
+    public boolean isNeighborDirectory() {
+        return neighborDirectory;
+    }
+
+    public void setNeighborDirectory(boolean neighborDirectory) {
+        this.neighborDirectory = neighborDirectory;
+    }
+
+    public long getNeighborDirectoryRevalidateMillis() {
+        return neighborDirectoryRevalidateMillis;
+    }
+
+    public void setNeighborDirectoryRevalidateMillis(long neighborDirectoryRevalidateMillis) {
+        this.neighborDirectoryRevalidateMillis = neighborDirectoryRevalidateMillis;
+    }
+
+    public boolean isGossipEnabled() {
+        return gossipEnabled;
+    }
+
+    public void setGossipEnabled(boolean gossipEnabled) {
+        this.gossipEnabled = gossipEnabled;
+    }
+
+    public String getGossipSeeds() {
+        return gossipSeeds;
+    }
+
+    public void setGossipSeeds(String gossipSeeds) {
+        this.gossipSeeds = gossipSeeds;
+    }
+
+    public long getGossipIntervalMillis() {
+        return gossipIntervalMillis;
+    }
+
+    public void setGossipIntervalMillis(long gossipIntervalMillis) {
+        this.gossipIntervalMillis = gossipIntervalMillis;
+    }
+
+    public long getGossipProbeTimeoutMillis() {
+        return gossipProbeTimeoutMillis;
+    }
+
+    public void setGossipProbeTimeoutMillis(long gossipProbeTimeoutMillis) {
+        this.gossipProbeTimeoutMillis = gossipProbeTimeoutMillis;
+    }
+
+    public int getGossipIndirectProbes() {
+        return gossipIndirectProbes;
+    }
+
+    public void setGossipIndirectProbes(int gossipIndirectProbes) {
+        this.gossipIndirectProbes = gossipIndirectProbes;
+    }
+
+    public long getGossipSuspicionMillis() {
+        return gossipSuspicionMillis;
+    }
+
+    public void setGossipSuspicionMillis(long gossipSuspicionMillis) {
+        this.gossipSuspicionMillis = gossipSuspicionMillis;
+    }
+
+    public long getGossipDeadRetentionMillis() {
+        return gossipDeadRetentionMillis;
+    }
+
+    public void setGossipDeadRetentionMillis(long gossipDeadRetentionMillis) {
+        this.gossipDeadRetentionMillis = gossipDeadRetentionMillis;
+    }
+
+    public int getGossipMaxMembers() {
+        return gossipMaxMembers;
+    }
+
+    public void setGossipMaxMembers(int gossipMaxMembers) {
+        this.gossipMaxMembers = gossipMaxMembers;
+    }
+
+    public CalibrationEngine.Strategy[] getCalibrationStrategies() {
+        return calibrationStrategies;
+    }
+
+    public void setCalibrationStrategies(CalibrationEngine.Strategy[] calibrationStrategies) {
+        this.calibrationStrategies = calibrationStrategies;
+    }
+
+    public double getCalibrationOwnWeight() {
+        return calibrationOwnWeight;
+    }
+
+    public void setCalibrationOwnWeight(double calibrationOwnWeight) {
+        this.calibrationOwnWeight = calibrationOwnWeight;
+    }
+
+    public double getCalibrationIdwPower() {
+        return calibrationIdwPower;
+    }
+
+    public void setCalibrationIdwPower(double calibrationIdwPower) {
+        this.calibrationIdwPower = calibrationIdwPower;
+    }
+
+    public double getCalibrationTrimFraction() {
+        return calibrationTrimFraction;
+    }
+
+    public void setCalibrationTrimFraction(double calibrationTrimFraction) {
+        this.calibrationTrimFraction = calibrationTrimFraction;
+    }
+
+    public double getCalibrationOutlierThreshold() {
+        return calibrationOutlierThreshold;
+    }
+
+    public void setCalibrationOutlierThreshold(double calibrationOutlierThreshold) {
+        this.calibrationOutlierThreshold = calibrationOutlierThreshold;
+    }
+
+    public long getChannelIdleTimeoutMillis() {
+        return channelIdleTimeoutMillis;
+    }
+
+    public void setChannelIdleTimeoutMillis(long channelIdleTimeoutMillis) {
+        this.channelIdleTimeoutMillis = channelIdleTimeoutMillis;
+    }
+
+    public long getChannelKeepAliveTimeMillis() {
+        return channelKeepAliveTimeMillis;
+    }
+
+    public void setChannelKeepAliveTimeMillis(long channelKeepAliveTimeMillis) {
+        this.channelKeepAliveTimeMillis = channelKeepAliveTimeMillis;
+    }
+
+    public long getChannelKeepAliveTimeoutMillis() {
+        return channelKeepAliveTimeoutMillis;
+    }
+
+    public void setChannelKeepAliveTimeoutMillis(long channelKeepAliveTimeoutMillis) {
+        this.channelKeepAliveTimeoutMillis = channelKeepAliveTimeoutMillis;
+    }
+
+    public int getUploadQueueCapacity() {
+        return uploadQueueCapacity;
+    }
+
+    public void setUploadQueueCapacity(int uploadQueueCapacity) {
+        this.uploadQueueCapacity = uploadQueueCapacity;
+    }
+
+    public int getUploadBatchSize() {
+        return uploadBatchSize;
+    }
+
+    public void setUploadBatchSize(int uploadBatchSize) {
+        this.uploadBatchSize = uploadBatchSize;
+    }
+
+    public long getUploadFlushIntervalMillis() {
+        return uploadFlushIntervalMillis;
+    }
+
+    public void setUploadFlushIntervalMillis(long uploadFlushIntervalMillis) {
+        this.uploadFlushIntervalMillis = uploadFlushIntervalMillis;
+    }
+
+    public long getUploadBlockTimeoutMillis() {
+        return uploadBlockTimeoutMillis;
+    }
+
+    public void setUploadBlockTimeoutMillis(long uploadBlockTimeoutMillis) {
+        this.uploadBlockTimeoutMillis = uploadBlockTimeoutMillis;
+    }
+
+    public ReadingUploader.OverflowPolicy getUploadOverflowPolicy() {
+        return uploadOverflowPolicy;
+    }
+
+    public void setUploadOverflowPolicy(ReadingUploader.OverflowPolicy uploadOverflowPolicy) {
+        this.uploadOverflowPolicy = uploadOverflowPolicy;
+    }
+
+    public long getUploadDrainTimeoutMillis() {
+        return uploadDrainTimeoutMillis;
+    }
+
+    public void setUploadDrainTimeoutMillis(long uploadDrainTimeoutMillis) {
+        this.uploadDrainTimeoutMillis = uploadDrainTimeoutMillis;
+    }
+
+    public ReadingGenerator.ReportMode getReportMode() {
+        return reportMode;
+    }
+
+    public void setReportMode(ReadingGenerator.ReportMode reportMode) {
+        this.reportMode = reportMode;
+    }
+
+    public double[] getReportDeadbands() {
+        return reportDeadbands;
+    }
+
+    public void setReportDeadbands(double[] reportDeadbands) {
+        this.reportDeadbands = reportDeadbands;
+    }
+
+    public long getReportHeartbeatMillis() {
+        return reportHeartbeatMillis;
+    }
+
+    public void setReportHeartbeatMillis(long reportHeartbeatMillis) {
+        this.reportHeartbeatMillis = reportHeartbeatMillis;
+    }
+
+    public boolean isUploadDeltaEncoding() {
+        return uploadDeltaEncoding;
+    }
+
+    public void setUploadDeltaEncoding(boolean uploadDeltaEncoding) {
+        this.uploadDeltaEncoding = uploadDeltaEncoding;
+    }
+
+    public ReadingUploader.UploadFormat getUploadFormat() {
+        return uploadFormat;
+    }
+
+    public void setUploadFormat(ReadingUploader.UploadFormat uploadFormat) {
+        this.uploadFormat = uploadFormat;
+    }
+
+    public String getUploadCollectorTarget() {
+        return uploadCollectorTarget;
+    }
+
+    public void setUploadCollectorTarget(String uploadCollectorTarget) {
+        this.uploadCollectorTarget = uploadCollectorTarget;
+    }
+
+    public int getUploadCollectorCapacity() {
+        return uploadCollectorCapacity;
+    }
+
+    public void setUploadCollectorCapacity(int uploadCollectorCapacity) {
+        this.uploadCollectorCapacity = uploadCollectorCapacity;
+    }
+
+    public String getSpoolDir() {
+        return spoolDir;
+    }
+
+    public void setSpoolDir(String spoolDir) {
+        this.spoolDir = spoolDir;
+    }
+
+    public long getSpoolSegmentBytes() {
+        return spoolSegmentBytes;
+    }
+
+    public void setSpoolSegmentBytes(long spoolSegmentBytes) {
+        this.spoolSegmentBytes = spoolSegmentBytes;
+    }
+
+    public long getSpoolMaxBytes() {
+        return spoolMaxBytes;
+    }
+
+    public void setSpoolMaxBytes(long spoolMaxBytes) {
+        this.spoolMaxBytes = spoolMaxBytes;
+    }
+
+    public ReadingSpool.FsyncPolicy getSpoolFsyncPolicy() {
+        return spoolFsyncPolicy;
+    }
+
+    public void setSpoolFsyncPolicy(ReadingSpool.FsyncPolicy spoolFsyncPolicy) {
+        this.spoolFsyncPolicy = spoolFsyncPolicy;
+    }
+
+    public long getSpoolFsyncIntervalMillis() {
+        return spoolFsyncIntervalMillis;
+    }
+
+    public void setSpoolFsyncIntervalMillis(long spoolFsyncIntervalMillis) {
+        this.spoolFsyncIntervalMillis = spoolFsyncIntervalMillis;
+    }
+
+    public ReadingCodec.Type getSpoolCodec() {
+        return spoolCodec;
+    }
+
+    public void setSpoolCodec(ReadingCodec.Type spoolCodec) {
+        this.spoolCodec = spoolCodec;
+    }
+
+    public int getHostGrpcPort() {
+        return hostGrpcPort;
+    }
+
+    public void setHostGrpcPort(int hostGrpcPort) {
+        this.hostGrpcPort = hostGrpcPort;
+    }
+
+    public int getHostEventLoopThreads() {
+        return hostEventLoopThreads;
+    }
+
+    public void setHostEventLoopThreads(int hostEventLoopThreads) {
+        this.hostEventLoopThreads = hostEventLoopThreads;
+    }
+
+    public int getHostSchedulerThreads() {
+        return hostSchedulerThreads;
+    }
+
+    public void setHostSchedulerThreads(int hostSchedulerThreads) {
+        this.hostSchedulerThreads = hostSchedulerThreads;
+    }
+
+    public int getHostUploadThreads() {
+        return hostUploadThreads;
+    }
+
+    public void setHostUploadThreads(int hostUploadThreads) {
+        this.hostUploadThreads = hostUploadThreads;
+    }
+
+    public int getHostHttpConnections() {
+        return hostHttpConnections;
+    }
+
+    public void setHostHttpConnections(int hostHttpConnections) {
+        this.hostHttpConnections = hostHttpConnections;
+    }
+
+    public SensorGRPCServer.ServerExecutor getGrpcServerExecutor() {
+        return grpcServerExecutor;
+    }
+
+    public void setGrpcServerExecutor(SensorGRPCServer.ServerExecutor grpcServerExecutor) {
+        this.grpcServerExecutor = grpcServerExecutor;
+    }
+
+    public int getGrpcServerThreads() {
+        return grpcServerThreads;
+    }
+
+    public void setGrpcServerThreads(int grpcServerThreads) {
+        this.grpcServerThreads = grpcServerThreads;
+    }
+
+    public boolean isGrpcNativeTransport() {
+        return grpcNativeTransport;
+    }
+
+    public void setGrpcNativeTransport(boolean grpcNativeTransport) {
+        this.grpcNativeTransport = grpcNativeTransport;
+    }
+
+    public int getGrpcMaxConcurrentCallsPerConnection() {
+        return grpcMaxConcurrentCallsPerConnection;
+    }
+
+    public void setGrpcMaxConcurrentCallsPerConnection(int grpcMaxConcurrentCallsPerConnection) {
+        this.grpcMaxConcurrentCallsPerConnection = grpcMaxConcurrentCallsPerConnection;
+    }
+
+    public int getGrpcFlowControlWindowBytes() {
+        return grpcFlowControlWindowBytes;
+    }
+
+    public void setGrpcFlowControlWindowBytes(int grpcFlowControlWindowBytes) {
+        this.grpcFlowControlWindowBytes = grpcFlowControlWindowBytes;
+    }
+
+    public long getGrpcKeepAliveTimeMillis() {
+        return grpcKeepAliveTimeMillis;
+    }
+
+    public void setGrpcKeepAliveTimeMillis(long grpcKeepAliveTimeMillis) {
+        this.grpcKeepAliveTimeMillis = grpcKeepAliveTimeMillis;
+    }
+
+    public long getGrpcKeepAliveTimeoutMillis() {
+        return grpcKeepAliveTimeoutMillis;
+    }
+
+    public void setGrpcKeepAliveTimeoutMillis(long grpcKeepAliveTimeoutMillis) {
+        this.grpcKeepAliveTimeoutMillis = grpcKeepAliveTimeoutMillis;
+    }
+
+    public int getHistoryCapacity() {
+        return historyCapacity;
+    }
+
+    public void setHistoryCapacity(int historyCapacity) {
+        this.historyCapacity = historyCapacity;
+    }
+
+    public long[] getHistoryWindowSeconds() {
+        return historyWindowSeconds;
+    }
+
+    public void setHistoryWindowSeconds(long[] historyWindowSeconds) {
+        this.historyWindowSeconds = historyWindowSeconds;
+    }
+
+    public long getAggregationWindowSeconds() {
+        return aggregationWindowSeconds;
+    }
+
+    public void setAggregationWindowSeconds(long aggregationWindowSeconds) {
+        this.aggregationWindowSeconds = aggregationWindowSeconds;
+    }
+
+    public int getAggregationRetainWindows() {
+        return aggregationRetainWindows;
+    }
+
+    public void setAggregationRetainWindows(int aggregationRetainWindows) {
+        this.aggregationRetainWindows = aggregationRetainWindows;
+    }
+
+    public double getAggregationCompression() {
+        return aggregationCompression;
+    }
+
+    public void setAggregationCompression(double aggregationCompression) {
+        this.aggregationCompression = aggregationCompression;
+    }
+
+    public double[] getAggregationQuantiles() {
+        return aggregationQuantiles;
+    }
+
+    public void setAggregationQuantiles(double[] aggregationQuantiles) {
+        this.aggregationQuantiles = aggregationQuantiles;
+    }
+
+    public boolean isUploadSummariesOnly() {
+        return uploadSummariesOnly;
+    }
+
+    public void setUploadSummariesOnly(boolean uploadSummariesOnly) {
+        this.uploadSummariesOnly = uploadSummariesOnly;
+    }
+
+    public int getMetricsPort() {
+        return metricsPort;
+    }
+
+    public void setMetricsPort(int metricsPort) {
+        this.metricsPort = metricsPort;
+    }
+
+    public String getLogLevel() {
+        return logLevel;
+    }
+
+    public void setLogLevel(String logLevel) {
+        this.logLevel = logLevel;
+    }
+
+    public int getRegisterMaxAttempts() {
+        return registerMaxAttempts;
+    }
+
+    public void setRegisterMaxAttempts(int registerMaxAttempts) {
+        this.registerMaxAttempts = registerMaxAttempts;
+    }
+
+    public long getRegisterBackoffMillis() {
+        return registerBackoffMillis;
+    }
+
+    public void setRegisterBackoffMillis(long registerBackoffMillis) {
+        this.registerBackoffMillis = registerBackoffMillis;
+    }
+
+    public long getRegisterMaxBackoffMillis() {
+        return registerMaxBackoffMillis;
+    }
+
+    public void setRegisterMaxBackoffMillis(long registerMaxBackoffMillis) {
+        this.registerMaxBackoffMillis = registerMaxBackoffMillis;
+    }
+
+    public long getShutdownTimeoutMillis() {
+        return shutdownTimeoutMillis;
+    }
+
+    public void setShutdownTimeoutMillis(long shutdownTimeoutMillis) {
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+    }
+}
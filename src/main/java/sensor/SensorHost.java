@@ -0,0 +1,273 @@
+package sensor;
+
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import sensor.client.ChannelPool;
+import sensor.client.NeighborDirectory;
+import sensor.client.ReadingSpool;
+import sensor.client.ReadingStreamUploader;
+import sensor.client.ReadingUploader;
+import sensor.client.ServerClient;
+import sensor.gossip.GossipMembership;
+import sensor.metrics.MetricsHttpServer;
+import sensor.utils.NeighborInfo;
+import sensor.server.SensorGRPCServer;
+import sensor.utils.ColumnarReadingStore;
+import sensor.utils.NettyTransport;
+import sensor.utils.ReadingSource;
+import sensor.utils.SerialExecutor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+public class SensorHost {
+    private static final Logger logger = Logger.getLogger(SensorHost.class.getName());
+
+    private final int count;
+    private final SensorConfig config;
+    private final List<ReadingGenerator> generators = new ArrayList<>();
+    private final List<ReadingUploader> uploaders = new ArrayList<>();
+    private final List<SamplingScheduler> schedulers = new ArrayList<>();
+    private final List<GossipMembership> memberships = new ArrayList<>();
+    private final SensorLifecycle lifecycle;
+    private EventLoopGroup eventLoopGroup;
+    private ChannelPool channelPool;
+    private ReadingStreamUploader collectorStream;
+    private NeighborDirectory directory;
+    private ScheduledExecutorService ticker;
+    private ExecutorService calibrationExecutor;
+    private ScheduledExecutorService uploadExecutor;
+    private SensorGRPCServer grpcServer;
+    private MetricsHttpServer metricsServer;
+
+    public SensorHost(int count, SensorConfig config) {
+        this.count = count;
+        this.config = config;
+        this.lifecycle = new SensorLifecycle(config.getShutdownTimeoutMillis());
+    }
+
+    public void start() throws Exception {
+        int port = config.getHostGrpcPort();
+        logger.info(String.format("Sensor host starting %d sensors on shared gRPC port %d", count, port));
+        lifecycle.installShutdownHook();
+        try {
+            startSensors(port);
+        } catch (Exception e) {
+            logger.severe("Sensor host failed to start: " + e.getMessage());
+            lifecycle.stop();
+            throw e;
+        }
+        grpcServer.blockUntilShutdown();
+        lifecycle.awaitStopped();
+    }
+
+    // Stop steps are registered in reverse of the order they run: schedulers first, then generators, then the
+    // uploaders drain, and the shared transport goes last.
+    private void startSensors(int port) throws Exception {
+        eventLoopGroup = NettyTransport.newEventLoopGroup(config.getHostEventLoopThreads(), config.isGrpcNativeTransport());
+        lifecycle.register("event loops",
+                timeout -> eventLoopGroup.shutdownGracefully(0, timeout, TimeUnit.MILLISECONDS));
+        ticker = Executors.newScheduledThreadPool(config.getHostSchedulerThreads(), daemonThreads("sensor-tick-"));
+        calibrationExecutor = Executors.newFixedThreadPool(config.getHostSchedulerThreads(), daemonThreads("sensor-calibration-"));
+        uploadExecutor = Executors.newScheduledThreadPool(config.getHostUploadThreads(), daemonThreads("sensor-upload-"));
+
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(config.getHostHttpConnections(), 5, TimeUnit.MINUTES))
+                .build();
+        ServerClient serverClient = ServerClient.create(config.getServerUrl(), httpClient);
+
+        // Registrations run concurrently, bounded by the HTTP connection pool, alongside the dataset load and
+        // the gRPC bind; the loop below consumes them in order.
+        ExecutorService startup = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(count, config.getHostHttpConnections())), daemonThreads("sensor-startup-"));
+        try {
+            Future<ReadingSource> dataset = startup.submit(() -> Sensor.openReadings(config));
+            List<Sensor> sensors = new ArrayList<>(count);
+            List<Future<Long>> registrations = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                double latitude = 45.75 + Math.random() * 0.1;
+                double longitude = 15.87 + Math.random() * 0.13;
+                Sensor sensor = new Sensor(latitude, longitude, port, config);
+                sensors.add(sensor);
+                registrations.add(startup.submit(() -> sensor.registerWithRetry(serverClient)));
+            }
+
+            metricsServer = Sensor.startMetrics(config);
+            if (metricsServer != null) {
+                lifecycle.register("metrics server", timeout -> metricsServer.stop());
+            }
+            grpcServer = new SensorGRPCServer(port, eventLoopGroup, config);
+            grpcServer.start();
+            lifecycle.register("gRPC server", grpcServer::stop);
+
+            channelPool = new ChannelPool(
+                    eventLoopGroup,
+                    config.getChannelIdleTimeoutMillis(),
+                    config.getChannelKeepAliveTimeMillis(),
+                    config.getChannelKeepAliveTimeoutMillis()
+            );
+            lifecycle.register("channel pool", timeout -> channelPool.close());
+            lifecycle.register("upload executor", timeout -> uploadExecutor.shutdownNow());
+
+            List<NeighborInfo> seeds = GossipMembership.parseSeeds(config.getGossipSeeds());
+            if (config.isNeighborDirectory() && !config.isGossipEnabled()) {
+                directory = new NeighborDirectory(serverClient, config.getNeighborDirectoryRevalidateMillis(),
+                        uploadExecutor, false);
+                lifecycle.register("neighbor directory", timeout -> directory.close());
+            }
+            lifecycle.register("gossip", timeout -> memberships.forEach(GossipMembership::close));
+
+            collectorStream = Sensor.openCollectorStream(config, eventLoopGroup);
+            if (collectorStream != null) {
+                lifecycle.register("collector stream",
+                        timeout -> collectorStream.close(Math.min(timeout, config.getUploadDrainTimeoutMillis())));
+            }
+            lifecycle.register("uploaders", this::closeUploaders);
+            lifecycle.register("reading generators", timeout -> generators.forEach(ReadingGenerator::stop));
+            lifecycle.register("sampling executors", timeout -> {
+                ticker.shutdownNow();
+                calibrationExecutor.shutdown();
+            });
+            lifecycle.register("sampling schedulers", timeout -> schedulers.forEach(SamplingScheduler::stop));
+
+            ReadingSource readings = Sensor.await(dataset);
+            long[] sensorIds = new long[count];
+            for (int i = 0; i < count; i++) {
+                try {
+                    sensorIds[i] = Sensor.await(registrations.get(i));
+                } catch (IOException e) {
+                    sensorIds[i] = -1;
+                    logger.warning("Skipping sensor: " + e.getMessage());
+                }
+            }
+            // Primed once every sensor of this host is registered, so the first neighbor lookups below are
+            // answered from one sensor listing instead of a nearest request per sensor.
+            if (directory != null) {
+                directory.start();
+            }
+
+            for (int i = 0; i < count; i++) {
+                Sensor sensor = sensors.get(i);
+                long sensorId = sensorIds[i];
+                if (sensorId < 0) {
+                    continue;
+                }
+
+                ReadingUploader uploader = new ReadingUploader(
+                        serverClient,
+                        sensorId,
+                        config.getUploadQueueCapacity(),
+                        config.getUploadBatchSize(),
+                        config.getUploadFlushIntervalMillis(),
+                        config.getUploadBlockTimeoutMillis(),
+                        config.getUploadOverflowPolicy(),
+                        uploadExecutor,
+                        false,
+                        openSpool(sensorId)
+                );
+                uploader.setDeltaEncoding(config.isUploadDeltaEncoding());
+                uploader.setUploadFormat(config.getUploadFormat());
+                uploader.setStream(collectorStream);
+                uploader.start();
+
+                GossipMembership membership = null;
+                if (config.isGossipEnabled()) {
+                    NeighborInfo self = new NeighborInfo(sensorId, sensor.getIp(), port, sensor.getLatitude(),
+                            sensor.getLongitude());
+                    membership = new GossipMembership(self, seeds, channelPool::client, config, uploadExecutor, false);
+                    if (seeds.isEmpty() || memberships.isEmpty()) {
+                        seeds = List.of(self);
+                    }
+                    memberships.add(membership);
+                }
+
+                ReadingGenerator generator = new ReadingGenerator(
+                        serverClient,
+                        uploader,
+                        sensor,
+                        readings,
+                        config.isGossipEnabled() ? null : findNeighbor(sensor, serverClient),
+                        channelPool::client,
+                        membership != null ? membership : directory,
+                        config
+                );
+                grpcServer.addSensor(generator, membership);
+                if (membership != null) {
+                    membership.start();
+                }
+                generators.add(generator);
+                uploaders.add(uploader);
+
+                SamplingScheduler scheduler = new SamplingScheduler(
+                        generator,
+                        config.getSamplingPeriodMillis(),
+                        config.getMissedTickPolicy(),
+                        config.getNeighborRefreshMillis(),
+                        ticker,
+                        new SerialExecutor(calibrationExecutor),
+                        uploadExecutor,
+                        false
+                );
+                scheduler.startWithRandomPhase();
+                schedulers.add(scheduler);
+            }
+        } finally {
+            startup.shutdownNow();
+        }
+        logger.info("Sensor host registered " + generators.size() + " sensors");
+    }
+
+    // A spool that cannot be opened, for example when the host runs out of file descriptors, costs that sensor
+    // its outage buffering rather than failing the whole host.
+    private ReadingSpool openSpool(long sensorId) {
+        try {
+            return Sensor.openSpool(config, sensorId);
+        } catch (IOException e) {
+            logger.warning("Sensor " + sensorId + " runs without a spool: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // A failed lookup leaves the sensor without a neighbor for now; its scheduled neighbor refresh retries.
+    private NeighborInfo findNeighbor(Sensor sensor, ServerClient serverClient) {
+        try {
+            return sensor.findNeighbor(serverClient, directory);
+        } catch (IOException e) {
+            logger.warning("Neighbor lookup for sensor " + sensor.getId() + " failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void stop() {
+        lifecycle.stop();
+    }
+
+    // Each uploader gets at most its drain timeout and never more than what is left of the shutdown budget, so
+    // one stuck upload cannot hold the whole host past its deadline.
+    private void closeUploaders(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (ReadingUploader uploader : uploaders) {
+            long remaining = Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+            uploader.close(Math.min(remaining, config.getUploadDrainTimeoutMillis()));
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,88 @@
+package sensor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+// Ordered shutdown for a sensor process. Components register a stop step as they come up and stop() runs the
+// steps once, newest first, so producers stop before the uploaders that drain them and the gRPC server goes
+// last. Every step gets what is left of one shared deadline; a step that fails or overruns is logged and the
+// rest still run. The process installs a single shutdown hook that calls stop().
+public class SensorLifecycle {
+    private static final Logger logger = Logger.getLogger(SensorLifecycle.class.getName());
+
+    @FunctionalInterface
+    public interface Step {
+        void stop(long timeoutMillis) throws Exception;
+    }
+
+    private record NamedStep(String name, Step step) {
+    }
+
+    private final long shutdownTimeoutMillis;
+    private final Deque<NamedStep> steps = new ArrayDeque<>();
+    private final AtomicBoolean stopping = new AtomicBoolean();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    public SensorLifecycle(long shutdownTimeoutMillis) {
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+    }
+
+    public void register(String name, Step step) {
+        synchronized (steps) {
+            steps.push(new NamedStep(name, step));
+        }
+    }
+
+    public void installShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "sensor-shutdown"));
+    }
+
+    public void stop() {
+        if (!stopping.compareAndSet(false, true)) {
+            awaitStopped();
+            return;
+        }
+        logger.info("Shutting down");
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMillis);
+        try {
+            while (true) {
+                NamedStep next;
+                synchronized (steps) {
+                    next = steps.poll();
+                }
+                if (next == null) {
+                    break;
+                }
+                long remaining = Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+                long start = System.nanoTime();
+                try {
+                    next.step().stop(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    logger.warning("Interrupted while stopping " + next.name());
+                } catch (Exception e) {
+                    logger.warning("Failed to stop " + next.name() + ": " + e.getMessage());
+                }
+                logger.fine(() -> "Stopped " + next.name() + " in "
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+            }
+            if (System.nanoTime() - deadline > 0) {
+                logger.warning("Shutdown exceeded its " + shutdownTimeoutMillis + " ms budget");
+            }
+        } finally {
+            stopped.countDown();
+        }
+    }
+
+    public void awaitStopped() {
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
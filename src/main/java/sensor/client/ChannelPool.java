@@ -0,0 +1,129 @@
+package sensor.client;
+
+import io.grpc.ManagedChannel;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import sensor.utils.NeighborInfo;
+import sensor.utils.NettyTransport;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class ChannelPool implements AutoCloseable {
+
+    private static class Entry {
+        private final ManagedChannel channel;
+        private int references;
+        private long idleSinceNanos;
+
+        private Entry(ManagedChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final Map<String, Entry> channels = new HashMap<>();
+    private final EventLoopGroup eventLoopGroup;
+    private final long idleTimeoutNanos;
+    private final long keepAliveTimeMillis;
+    private final long keepAliveTimeoutMillis;
+    private final ScheduledExecutorService maintenance;
+
+    public ChannelPool(long idleTimeoutMillis, long keepAliveTimeMillis, long keepAliveTimeoutMillis) {
+        this(null, idleTimeoutMillis, keepAliveTimeMillis, keepAliveTimeoutMillis);
+    }
+
+    public ChannelPool(EventLoopGroup eventLoopGroup, long idleTimeoutMillis, long keepAliveTimeMillis,
+                       long keepAliveTimeoutMillis) {
+        this.eventLoopGroup = eventLoopGroup;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.keepAliveTimeMillis = keepAliveTimeMillis;
+        this.keepAliveTimeoutMillis = keepAliveTimeoutMillis;
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "grpc-channel-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepMillis = Math.max(1000, idleTimeoutMillis / 2);
+        maintenance.scheduleWithFixedDelay(this::evictIdle, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public SensorGRPCClient client(NeighborInfo neighbor) {
+        String host = neighbor.getIp();
+        int port = neighbor.getPort();
+        return new SensorGRPCClient(acquire(host, port), neighbor.getId(), () -> release(host, port));
+    }
+
+    public synchronized ManagedChannel acquire(String host, int port) {
+        Entry entry = channels.computeIfAbsent(key(host, port), k -> new Entry(newChannel(host, port)));
+        entry.references++;
+        return entry.channel;
+    }
+
+    public synchronized void release(String host, int port) {
+        Entry entry = channels.get(key(host, port));
+        if (entry != null && entry.references > 0 && --entry.references == 0) {
+            entry.idleSinceNanos = System.nanoTime();
+        }
+    }
+
+    public synchronized int size() {
+        return channels.size();
+    }
+
+    @Override
+    public void close() {
+        maintenance.shutdownNow();
+        List<ManagedChannel> open;
+        synchronized (this) {
+            open = new ArrayList<>(channels.size());
+            for (Entry entry : channels.values()) {
+                open.add(entry.channel);
+            }
+            channels.clear();
+        }
+        for (ManagedChannel channel : open) {
+            channel.shutdownNow();
+        }
+    }
+
+    private void evictIdle() {
+        List<ManagedChannel> evicted = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (this) {
+            Iterator<Entry> it = channels.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.references == 0 && now - entry.idleSinceNanos >= idleTimeoutNanos) {
+                    it.remove();
+                    evicted.add(entry.channel);
+                }
+            }
+        }
+        for (ManagedChannel channel : evicted) {
+            channel.shutdown();
+        }
+    }
+
+    private ManagedChannel newChannel(String host, int port) {
+        NettyChannelBuilder builder = NettyChannelBuilder
+                .forAddress(host, port)
+                .keepAliveTime(keepAliveTimeMillis, TimeUnit.MILLISECONDS)
+                .keepAliveTimeout(keepAliveTimeoutMillis, TimeUnit.MILLISECONDS)
+                .keepAliveWithoutCalls(true)
+                .usePlaintext();
+        if (eventLoopGroup != null) {
+            builder.eventLoopGroup(eventLoopGroup).channelType(NettyTransport.channelType(eventLoopGroup));
+        }
+        return builder.build();
+    }
+
+    private static String key(String host, int port) {
+        return host + ":" + port;
+    }
+}
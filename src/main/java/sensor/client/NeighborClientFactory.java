@@ -0,0 +1,10 @@
+package sensor.client;
+
+import sensor.utils.NeighborInfo;
+
+public interface NeighborClientFactory {
+
+    NeighborClientFactory DEDICATED = neighbor -> new SensorGRPCClient(neighbor.getIp(), neighbor.getPort(), neighbor.getId());
+
+    SensorGRPCClient create(NeighborInfo neighbor);
+}
@@ -0,0 +1,125 @@
+package sensor.client;
+
+import retrofit2.Response;
+import sensor.Sensor;
+import sensor.metrics.Counter;
+import sensor.metrics.MetricsRegistry;
+import sensor.utils.NeighborInfo;
+import sensor.utils.SpatialIndex;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+public class NeighborDirectory implements NeighborLocator, AutoCloseable {
+    private static final Logger logger = Logger.getLogger(NeighborDirectory.class.getName());
+
+    private final ServerClient serverClient;
+    private final long revalidateMillis;
+    private final ScheduledExecutorService executor;
+    private final boolean ownsExecutor;
+    private final Counter modified;
+    private final Counter notModified;
+    private final Counter errors;
+    private ScheduledFuture<?> revalidateTask;
+    private String etag;
+    private volatile SpatialIndex index = new SpatialIndex(List.of());
+    private volatile long version;
+    private volatile boolean available = true;
+
+    public NeighborDirectory(ServerClient serverClient, long revalidateMillis) {
+        this(serverClient, revalidateMillis, Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "neighbor-directory");
+            thread.setDaemon(true);
+            return thread;
+        }), true);
+    }
+
+    public NeighborDirectory(ServerClient serverClient, long revalidateMillis, ScheduledExecutorService executor,
+                             boolean ownsExecutor) {
+        this.serverClient = serverClient;
+        this.revalidateMillis = revalidateMillis;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        MetricsRegistry metrics = MetricsRegistry.DEFAULT;
+        String help = "Sensor directory revalidations against the server, by result.";
+        this.modified = metrics.counter("sensor_directory_refresh_total", help, "result", "modified");
+        this.notModified = metrics.counter("sensor_directory_refresh_total", help, "result", "not_modified");
+        this.errors = metrics.counter("sensor_directory_refresh_total", help, "result", "error");
+        metrics.gauge("sensor_directory_size", "Sensors known to the local neighbor directory.",
+                () -> index.size());
+    }
+
+    public void start() {
+        refresh();
+        revalidateTask = executor.scheduleWithFixedDelay(this::refresh,
+                revalidateMillis, revalidateMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public List<NeighborInfo> nearest(long sensorId, double latitude, double longitude, int k) {
+        return index.nearest(latitude, longitude, k, sensorId);
+    }
+
+    public synchronized void refresh() {
+        if (!available) {
+            return;
+        }
+        try {
+            Response<List<Sensor>> response = serverClient.getSensors(etag).execute();
+            if (response.code() == 304) {
+                notModified.increment();
+                return;
+            }
+            if (response.isSuccessful() && response.body() != null) {
+                List<NeighborInfo> sensors = new ArrayList<>(response.body().size());
+                for (Sensor sensor : response.body()) {
+                    sensors.add(new NeighborInfo(sensor.getId(), sensor.getIp(), sensor.getPort(),
+                            sensor.getLatitude(), sensor.getLongitude()));
+                }
+                index = new SpatialIndex(sensors);
+                etag = response.headers().get("ETag");
+                version++;
+                modified.increment();
+                logger.fine("Neighbor directory updated with " + sensors.size() + " sensors");
+                return;
+            }
+            errors.increment();
+            if (response.code() == 404 || response.code() == 405 || response.code() == 501) {
+                available = false;
+                logger.warning("Server has no sensor list endpoint, falling back to per-sensor nearest lookups");
+            } else {
+                logger.warning("Neighbor directory refresh failed: HTTP " + response.code());
+            }
+        } catch (IOException e) {
+            errors.increment();
+            logger.warning("Neighbor directory refresh failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (revalidateTask != null) {
+            revalidateTask.cancel(false);
+        }
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+        MetricsRegistry.DEFAULT.remove("sensor_directory_size");
+    }
+}
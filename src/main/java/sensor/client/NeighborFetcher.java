@@ -0,0 +1,95 @@
+package sensor.client;
+
+import io.grpc.Context;
+import sensor.dto.Reading;
+import sensor.utils.NeighborInfo;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class NeighborFetcher {
+
+    private NeighborFetcher() {
+    }
+
+    public static CompletableFuture<Reading> first(List<NeighborLink> links, long budgetMillis) {
+        CompletableFuture<Reading> result = new CompletableFuture<>();
+        if (links.isEmpty()) {
+            result.complete(null);
+            return result;
+        }
+        Context.CancellableContext context = Context.current().withCancellation();
+        AtomicInteger pending = new AtomicInteger(links.size());
+        context.run(() -> {
+            for (NeighborLink link : links) {
+                fetch(link, budgetMillis).whenComplete((reading, error) -> {
+                    if (error == null && reading != null) {
+                        result.complete(reading);
+                    }
+                    if (pending.decrementAndGet() == 0) {
+                        result.complete(null);
+                    }
+                });
+            }
+        });
+        CompletableFuture.delayedExecutor(budgetMillis, TimeUnit.MILLISECONDS).execute(() -> result.complete(null));
+        result.whenComplete((reading, error) -> context.cancel(null));
+        return result;
+    }
+
+    public static CompletableFuture<Reading[]> all(List<NeighborLink> links, long budgetMillis) {
+        CompletableFuture<Reading[]> result = new CompletableFuture<>();
+        if (links.isEmpty()) {
+            result.complete(new Reading[0]);
+            return result;
+        }
+        AtomicReferenceArray<Reading> replies = new AtomicReferenceArray<>(links.size());
+        AtomicInteger pending = new AtomicInteger(links.size());
+        for (int i = 0; i < links.size(); i++) {
+            int index = i;
+            fetch(links.get(i), budgetMillis).whenComplete((reading, error) -> {
+                if (error == null) {
+                    replies.set(index, reading);
+                }
+                if (pending.decrementAndGet() == 0) {
+                    result.complete(snapshot(replies));
+                }
+            });
+        }
+        CompletableFuture.delayedExecutor(budgetMillis, TimeUnit.MILLISECONDS)
+                .execute(() -> result.complete(snapshot(replies)));
+        return result;
+    }
+
+    // Sends the timestamp of the reading we already hold so an unchanged neighbor answers with a bare
+    // "not modified" instead of the full reading.
+    private static CompletableFuture<Reading> fetch(NeighborLink link, long budgetMillis) {
+        NeighborInfo info = link.getInfo();
+        Reading known = info.getLastReading();
+        long knownVersion = known == null ? -1 : known.timestamp();
+        return link.getClient().getLastReadingIfModifiedAsync(knownVersion, budgetMillis).thenApply(response -> {
+            if (response.getNotModified()) {
+                return known;
+            }
+            if (!response.hasReading()) {
+                // The neighbor has not sampled yet: treat it as missing rather than as a zeroed reading.
+                info.setLastReading(null);
+                return null;
+            }
+            Reading reading = Reading.fromResponse(response.getReading());
+            info.setLastReading(reading);
+            return reading;
+        });
+    }
+
+    private static Reading[] snapshot(AtomicReferenceArray<Reading> replies) {
+        Reading[] readings = new Reading[replies.length()];
+        for (int i = 0; i < readings.length; i++) {
+            readings[i] = replies.get(i);
+        }
+        return readings;
+    }
+}
@@ -0,0 +1,105 @@
+package sensor.client;
+
+import io.grpc.stub.StreamObserver;
+import sensor.dto.Reading;
+import sensor.grpc.ReadingResponse;
+import sensor.utils.NeighborInfo;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+// Keeps one StreamReadings subscription to a neighbor open and answers latest() from the last value it pushed.
+// A failed subscription is retried from latest() with exponential backoff, and availability changes are
+// logged once per transition rather than once per attempt. Callbacks from a subscription that has since been
+// replaced or closed are ignored, so a late error cannot clear the reading of its successor.
+public class NeighborLink {
+    private static final Logger logger = Logger.getLogger(NeighborLink.class.getName());
+    private static final long MIN_RETRY_MILLIS = 100;
+    private static final long MAX_RETRY_MILLIS = 10_000;
+
+    private final NeighborInfo info;
+    private final SensorGRPCClient client;
+    private ReadingSubscription subscription;
+    private long attempt;
+    private long retryMillis = MIN_RETRY_MILLIS;
+    private long nextAttemptNanos;
+    private boolean available = true;
+    private boolean closed;
+
+    public NeighborLink(NeighborInfo info, SensorGRPCClient client) {
+        this.info = info;
+        this.client = client;
+    }
+
+    public NeighborInfo getInfo() {
+        return info;
+    }
+
+    public SensorGRPCClient getClient() {
+        return client;
+    }
+
+    public synchronized Reading latest() {
+        if (closed) {
+            return null;
+        }
+        if ((subscription == null || !subscription.isActive()) && System.nanoTime() - nextAttemptNanos >= 0) {
+            long current = ++attempt;
+            subscription = client.subscribe(new StreamObserver<>() {
+                @Override
+                public void onNext(ReadingResponse value) {
+                    onReading(current, value);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    onEnded(current, t.getMessage());
+                }
+
+                @Override
+                public void onCompleted() {
+                    onEnded(current, "stream completed");
+                }
+            });
+        }
+        return info.getLastReading();
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    public synchronized void close() {
+        closed = true;
+        if (subscription != null) {
+            subscription.cancel();
+            subscription = null;
+        }
+        client.shutdown();
+    }
+
+    private synchronized void onReading(long from, ReadingResponse value) {
+        if (closed || from != attempt) {
+            return;
+        }
+        info.setLastReading(Reading.fromResponse(value));
+        retryMillis = MIN_RETRY_MILLIS;
+        if (!available) {
+            available = true;
+            logger.info("Neighbor " + info.getId() + " available again");
+        }
+    }
+
+    private synchronized void onEnded(long from, String reason) {
+        if (closed || from != attempt) {
+            return;
+        }
+        info.setLastReading(null);
+        nextAttemptNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryMillis);
+        if (available) {
+            available = false;
+            logger.warning("Neighbor " + info.getId() + " unavailable (" + reason + "), retrying with backoff");
+        }
+        retryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+    }
+}
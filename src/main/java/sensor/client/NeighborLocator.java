@@ -0,0 +1,14 @@
+package sensor.client;
+
+import sensor.utils.NeighborInfo;
+
+import java.util.List;
+
+public interface NeighborLocator {
+
+    boolean isAvailable();
+
+    long getVersion();
+
+    List<NeighborInfo> nearest(long sensorId, double latitude, double longitude, int k);
+}
@@ -0,0 +1,485 @@
+package sensor.client;
+
+import sensor.dto.Reading;
+import sensor.utils.ReadingCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+// Segmented on-disk queue of readings awaiting upload. Each append is written as one block, encoded with the
+// configured ReadingCodec behind a small header (codec id, count, length, CRC of the payload), and an in-memory
+// index of block offsets per segment locates a sequence. Files are held open only while readings are pending:
+// an empty spool keeps no descriptors, so a host can give every sensor one and pay only for those spooling.
+public class ReadingSpool implements Closeable {
+    private static final Logger logger = Logger.getLogger(ReadingSpool.class.getName());
+
+    public enum FsyncPolicy {
+        ALWAYS,
+        INTERVAL,
+        NEVER
+    }
+
+    private static final int MAGIC = 0x53505331;
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 16;
+    private static final int BLOCK_HEADER_BYTES = 1 + 3 * Integer.BYTES;
+    private static final int MAX_BLOCK_READINGS = 1024;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CURSOR_FILE = "cursor";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final long maxBytes;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final ReadingCodec codec;
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private FileChannel cursor;
+    private final ByteBuffer cursorBuffer = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32 crc = new CRC32();
+    private FileChannel writer;
+    private FileChannel reader;
+    private Segment readerSegment;
+    private long ackedSequence;
+    private long unreadable;
+    private long nextSequence;
+    private long dropped;
+    private long lastSyncNanos = System.nanoTime();
+    private boolean dirty;
+
+    public ReadingSpool(Path directory, long segmentBytes, long maxBytes, FsyncPolicy fsyncPolicy,
+                        long fsyncIntervalMillis) throws IOException {
+        this(directory, segmentBytes, maxBytes, fsyncPolicy, fsyncIntervalMillis, ReadingCodec.Type.GORILLA.codec());
+    }
+
+    public ReadingSpool(Path directory, long segmentBytes, long maxBytes, FsyncPolicy fsyncPolicy,
+                        long fsyncIntervalMillis, ReadingCodec codec) throws IOException {
+        this.directory = directory;
+        this.codec = codec;
+        this.segmentBytes = Math.max(segmentBytes, HEADER_BYTES + BLOCK_HEADER_BYTES);
+        this.maxBytes = maxBytes;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    public synchronized long pending() {
+        return nextSequence - ackedSequence - unreadable;
+    }
+
+    public synchronized long sizeBytes() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.bytes();
+        }
+        return size;
+    }
+
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    public synchronized void append(List<Reading> readings) throws IOException {
+        int index = 0;
+        while (index < readings.size()) {
+            Segment active = segments.peekLast();
+            if (writer == null || active == null || active.bytes() >= segmentBytes) {
+                roll();
+                active = segments.peekLast();
+            }
+            int count = Math.min(MAX_BLOCK_READINGS, readings.size() - index);
+            byte[] payload = codec.encode(readings.subList(index, index + count));
+            crc.reset();
+            crc.update(payload);
+            ByteBuffer buffer = ByteBuffer.allocate(BLOCK_HEADER_BYTES + payload.length).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put((byte) codec.id()).putInt(count).putInt(payload.length).putInt((int) crc.getValue())
+                    .put(payload)
+                    .flip();
+            while (buffer.hasRemaining()) {
+                writer.write(buffer);
+            }
+            active.addBlock(count, buffer.capacity());
+            nextSequence += count;
+            index += count;
+        }
+        dirty = true;
+        sync(writer);
+        enforceLimit();
+    }
+
+    public synchronized List<Reading> peek(int max) throws IOException {
+        List<Reading> readings = new ArrayList<>((int) Math.min(max, pending()));
+        long sequence = ackedSequence;
+        for (Segment segment : segments) {
+            if (readings.size() >= max) {
+                break;
+            }
+            if (sequence >= segment.end()) {
+                continue;
+            }
+            sequence = Math.max(sequence, segment.first);
+            for (int block = segment.blockFor(sequence); block < segment.blocks && readings.size() < max; block++) {
+                List<Reading> decoded = readBlock(segment, block);
+                int skip = (int) (sequence - segment.blockFirst(block));
+                int count = Math.min(max - readings.size(), decoded.size() - skip);
+                readings.addAll(decoded.subList(skip, skip + count));
+                sequence += count;
+            }
+        }
+        return readings;
+    }
+
+    // Advances past count readings as peek() returned them, stepping over any gap between segments.
+    public synchronized void ack(int count) throws IOException {
+        long remaining = count;
+        for (Segment segment : segments) {
+            if (remaining == 0) {
+                break;
+            }
+            if (ackedSequence >= segment.end()) {
+                continue;
+            }
+            ackedSequence = Math.max(ackedSequence, segment.first);
+            long acked = Math.min(remaining, segment.end() - ackedSequence);
+            ackedSequence += acked;
+            remaining -= acked;
+        }
+        writeCursor();
+        compact();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                writer.force(false);
+            }
+            writer.close();
+            writer = null;
+        }
+        closeReader();
+        closeCursor();
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort(null);
+        for (Path file : files) {
+            Segment segment = openSegment(file);
+            if (segment != null && segment.count > 0) {
+                segments.addLast(segment);
+            } else if (segment != null) {
+                Files.delete(file);
+            }
+        }
+        Segment last = segments.peekLast();
+        if (last != null) {
+            truncateTornTail(last);
+        }
+
+        Segment first = segments.peekFirst();
+        nextSequence = last == null ? 0 : last.end();
+        ackedSequence = first == null ? 0 : first.first;
+        Path cursorPath = directory.resolve(CURSOR_FILE);
+        if (Files.exists(cursorPath) && Files.size(cursorPath) >= Long.BYTES) {
+            long stored = ByteBuffer.wrap(Files.readAllBytes(cursorPath)).order(ByteOrder.LITTLE_ENDIAN).getLong();
+            ackedSequence = Math.max(ackedSequence, Math.min(stored, nextSequence));
+            if (last == null) {
+                nextSequence = ackedSequence = stored;
+            }
+        }
+        compact();
+        if (unreadable > 0) {
+            dropped += unreadable;
+            logger.warning("Spool " + directory + " lost " + unreadable + " readings in invalid segments");
+        }
+        if (pending() > 0) {
+            logger.info("Recovered " + pending() + " spooled readings from " + directory);
+        }
+    }
+
+    private Segment openSegment(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        long first;
+        try {
+            first = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            int read = channel.read(header, 0);
+            if (read < HEADER_BYTES || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                logger.warning("Ignoring invalid spool segment " + file);
+                return null;
+            }
+            Segment segment = new Segment(first, file);
+            scanBlocks(channel, segment);
+            return segment;
+        }
+    }
+
+    // Indexes the blocks of a segment, stopping at the first one that is torn or fails its checksum.
+    private void scanBlocks(FileChannel channel, Segment segment) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        long position = HEADER_BYTES;
+        while (position + BLOCK_HEADER_BYTES <= channel.size()) {
+            header.clear();
+            channel.read(header, position);
+            int count = header.getInt(1);
+            int length = header.getInt(5);
+            if (count <= 0 || length < 0 || position + BLOCK_HEADER_BYTES + length > channel.size()) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            channel.read(payload, position + BLOCK_HEADER_BYTES);
+            crc.reset();
+            crc.update(payload.array(), 0, length);
+            if (header.getInt(9) != (int) crc.getValue()) {
+                break;
+            }
+            segment.addBlock(count, BLOCK_HEADER_BYTES + length);
+            position += BLOCK_HEADER_BYTES + length;
+        }
+    }
+
+    private void truncateTornTail(Segment segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.WRITE)) {
+            if (channel.size() != segment.bytes()) {
+                logger.warning("Truncating spool segment " + segment.path + " after " + segment.count
+                        + " valid readings");
+                channel.truncate(segment.bytes());
+            }
+        }
+    }
+
+    private void roll() throws IOException {
+        if (writer != null) {
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                writer.force(false);
+            }
+            writer.close();
+        }
+        Segment segment = new Segment(nextSequence,
+                directory.resolve(String.format("%020d%s", nextSequence, SEGMENT_SUFFIX)));
+        writer = FileChannel.open(segment.path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putLong(nextSequence).flip();
+        while (header.hasRemaining()) {
+            writer.write(header);
+        }
+        writer.position(HEADER_BYTES);
+        segments.addLast(segment);
+    }
+
+    private void enforceLimit() throws IOException {
+        long size = sizeBytes();
+        while (size > maxBytes && segments.size() > 1) {
+            Segment oldest = segments.peekFirst();
+            long lost = oldest.end() - Math.max(ackedSequence, oldest.first);
+            if (lost > 0) {
+                dropped += lost;
+                logger.warning("Spool " + directory + " is full, dropping " + lost + " oldest readings");
+            }
+            size -= oldest.bytes();
+            ackedSequence = Math.max(ackedSequence, oldest.end());
+            writeCursor();
+            compact();
+        }
+    }
+
+    private void compact() throws IOException {
+        while (!segments.isEmpty() && segments.peekFirst().end() <= ackedSequence) {
+            Segment segment = segments.pollFirst();
+            if (segment == readerSegment) {
+                closeReader();
+            }
+            if (segments.isEmpty() && writer != null) {
+                writer.close();
+                writer = null;
+            }
+            Files.deleteIfExists(segment.path);
+        }
+        if (segments.isEmpty()) {
+            closeCursor();
+        }
+        countGaps();
+    }
+
+    // Sequence numbers past the cursor that no segment holds, left by an invalid segment dropped on recovery.
+    private void countGaps() {
+        long missing = 0;
+        long expected = ackedSequence;
+        for (Segment segment : segments) {
+            if (segment.first > expected) {
+                missing += segment.first - expected;
+            }
+            expected = Math.max(expected, segment.end());
+        }
+        unreadable = missing;
+    }
+
+    private void writeCursor() throws IOException {
+        if (cursor == null) {
+            cursor = FileChannel.open(directory.resolve(CURSOR_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+        }
+        cursorBuffer.clear();
+        cursorBuffer.putLong(ackedSequence).flip();
+        while (cursorBuffer.hasRemaining()) {
+            cursor.write(cursorBuffer, cursorBuffer.position());
+        }
+        dirty = true;
+        sync(cursor);
+    }
+
+    private void sync(FileChannel channel) throws IOException {
+        switch (fsyncPolicy) {
+            case ALWAYS:
+                channel.force(false);
+                break;
+            case INTERVAL:
+                long now = System.nanoTime();
+                if (dirty && now - lastSyncNanos >= fsyncIntervalNanos) {
+                    if (writer != null) {
+                        writer.force(false);
+                    }
+                    if (cursor != null) {
+                        cursor.force(false);
+                    }
+                    lastSyncNanos = now;
+                    dirty = false;
+                }
+                break;
+            case NEVER:
+                break;
+        }
+    }
+
+    private void closeCursor() throws IOException {
+        if (cursor != null) {
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                cursor.force(false);
+            }
+            cursor.close();
+            cursor = null;
+        }
+    }
+
+    private FileChannel readerFor(Segment segment) throws IOException {
+        if (readerSegment != segment) {
+            closeReader();
+            reader = FileChannel.open(segment.path, StandardOpenOption.READ);
+            readerSegment = segment;
+        }
+        return reader;
+    }
+
+    private void closeReader() throws IOException {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+            readerSegment = null;
+        }
+    }
+
+    private ByteBuffer read(Segment segment, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        FileChannel channel = readerFor(segment);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Spool segment " + segment.path + " is truncated");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private List<Reading> readBlock(Segment segment, int block) throws IOException {
+        ByteBuffer buffer = read(segment, segment.blockPositions[block], segment.blockBytes(block));
+        int length = buffer.getInt(5);
+        crc.reset();
+        crc.update(buffer.array(), BLOCK_HEADER_BYTES, length);
+        if (buffer.getInt(9) != (int) crc.getValue()) {
+            throw new IOException("Corrupt block in spool " + directory);
+        }
+        try {
+            List<Reading> readings = ReadingCodec.Type.forId(buffer.get(0)).decode(buffer.array(), BLOCK_HEADER_BYTES, length);
+            if (readings.size() != buffer.getInt(1)) {
+                throw new IOException("Block in spool " + directory + " decoded to " + readings.size() + " readings");
+            }
+            return readings;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Undecodable block in spool " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static class Segment {
+        private final long first;
+        private final Path path;
+        private long count;
+        private long size = HEADER_BYTES;
+        private int blocks;
+        private long[] blockPositions = new long[0];
+        private long[] blockFirsts = new long[0];
+
+        private Segment(long first, Path path) {
+            this.first = first;
+            this.path = path;
+        }
+
+        private long end() {
+            return first + count;
+        }
+
+        private long bytes() {
+            return size;
+        }
+
+        private void addBlock(int readings, int bytes) {
+            if (blocks == blockPositions.length) {
+                blockPositions = Arrays.copyOf(blockPositions, Math.max(16, blocks * 2));
+                blockFirsts = Arrays.copyOf(blockFirsts, blockPositions.length);
+            }
+            blockPositions[blocks] = size;
+            blockFirsts[blocks] = first + count;
+            blocks++;
+            count += readings;
+            size += bytes;
+        }
+
+        private long blockFirst(int block) {
+            return blockFirsts[block];
+        }
+
+        private int blockBytes(int block) {
+            return (int) ((block + 1 < blocks ? blockPositions[block + 1] : size) - blockPositions[block]);
+        }
+
+        // Index of the block holding the given sequence, which must lie within this segment.
+        private int blockFor(long sequence) {
+            int index = Arrays.binarySearch(blockFirsts, 0, blocks, sequence);
+            return index >= 0 ? index : -index - 2;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package sensor.client;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import sensor.dto.Reading;
+import sensor.grpc.ReadingCollectorGrpc;
+import sensor.grpc.ReportAck;
+import sensor.grpc.SensorReading;
+import sensor.metrics.Counter;
+import sensor.metrics.GrpcMetrics;
+import sensor.metrics.MetricsRegistry;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+// Multiplexes the readings of every sensor in this JVM onto one long-lived ReportReadings stream. Messages
+// are written only while the call is ready, so HTTP/2 flow control holds them in the pending queue rather than
+// in gRPC buffers, and stay in the unacked queue until the collector's batched ack covers their sequence. When
+// the stream fails, unacked messages are requeued ahead of new ones and the stream is reopened with backoff,
+// giving at-least-once delivery; offer() refuses readings once pending reaches capacity.
+public class ReadingStreamUploader implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(ReadingStreamUploader.class.getName());
+    private static final long MIN_RECONNECT_MILLIS = 100;
+    private static final long MAX_RECONNECT_MILLIS = 10_000;
+
+    private final ManagedChannel channel;
+    private final ReadingCollectorGrpc.ReadingCollectorStub stub;
+    private final int capacity;
+    private final ArrayDeque<SensorReading> pending = new ArrayDeque<>();
+    private final ArrayDeque<SensorReading> unacked = new ArrayDeque<>();
+    private final ScheduledExecutorService reconnector;
+    private final Counter acked;
+    private final Counter resent;
+    private ClientCallStreamObserver<SensorReading> stream;
+    private long nextSequence;
+    private long reconnectMillis = MIN_RECONNECT_MILLIS;
+    private boolean running = true;
+
+    public ReadingStreamUploader(ManagedChannel channel, int capacity) {
+        this.channel = channel;
+        this.stub = ReadingCollectorGrpc.newStub(channel)
+                .withInterceptors(GrpcMetrics.clientInterceptor(MetricsRegistry.DEFAULT));
+        this.capacity = capacity;
+        this.reconnector = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "reading-stream-reconnect");
+            thread.setDaemon(true);
+            return thread;
+        });
+        MetricsRegistry metrics = MetricsRegistry.DEFAULT;
+        this.acked = metrics.counter("sensor_stream_acked_total",
+                "Readings acknowledged by the collector over the ReportReadings stream.");
+        this.resent = metrics.counter("sensor_stream_resent_total",
+                "Unacknowledged readings requeued after the ReportReadings stream failed.");
+        metrics.gauge("sensor_stream_pending", "Readings waiting to be written to the ReportReadings stream.",
+                this::getPendingCount);
+    }
+
+    public synchronized void start() {
+        connect();
+    }
+
+    public boolean offer(long sensorId, List<Reading> readings) {
+        synchronized (this) {
+            if (!running || pending.size() + readings.size() > capacity) {
+                return false;
+            }
+            for (Reading reading : readings) {
+                pending.addLast(SensorReading.newBuilder()
+                        .setSensorId(sensorId)
+                        .setSequence(nextSequence++)
+                        .setReading(reading.toResponse())
+                        .build());
+            }
+        }
+        drain();
+        return true;
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size() + unacked.size();
+    }
+
+    // An interrupt cuts the drain short like an expired deadline and is re-asserted on the calling thread.
+    public void close(long drainTimeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutMillis);
+        boolean interrupted = false;
+        synchronized (this) {
+            running = false;
+            while (!pending.isEmpty() || !unacked.isEmpty()) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0 || interrupted) {
+                    logger.warning("Reading stream not drained, dropping " + getPendingCount() + " readings");
+                    break;
+                }
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (stream != null) {
+                stream.onCompleted();
+                stream = null;
+            }
+        }
+        MetricsRegistry.DEFAULT.remove("sensor_stream_pending");
+        reconnector.shutdownNow();
+        channel.shutdown();
+        try {
+            if (!interrupted && !channel.awaitTermination(drainTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                channel.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        if (interrupted) {
+            channel.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        close(5000);
+    }
+
+    private synchronized void drain() {
+        ClientCallStreamObserver<SensorReading> current = stream;
+        while (current != null && current.isReady() && !pending.isEmpty()) {
+            SensorReading reading = pending.pollFirst();
+            unacked.addLast(reading);
+            current.onNext(reading);
+        }
+    }
+
+    private synchronized void connect() {
+        if (stream != null || reconnector.isShutdown()) {
+            return;
+        }
+        stub.reportReadings(new ClientResponseObserver<SensorReading, ReportAck>() {
+            private ClientCallStreamObserver<SensorReading> requestStream;
+
+            @Override
+            public void beforeStart(ClientCallStreamObserver<SensorReading> requestStream) {
+                this.requestStream = requestStream;
+                synchronized (ReadingStreamUploader.this) {
+                    stream = requestStream;
+                }
+                requestStream.setOnReadyHandler(ReadingStreamUploader.this::drain);
+            }
+
+            @Override
+            public void onNext(ReportAck ack) {
+                onAck(ack);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                onStreamClosed(requestStream, Status.fromThrowable(t).toString());
+            }
+
+            @Override
+            public void onCompleted() {
+                onStreamClosed(requestStream, "completed by collector");
+            }
+        });
+    }
+
+    private synchronized void onAck(ReportAck ack) {
+        reconnectMillis = MIN_RECONNECT_MILLIS;
+        long count = 0;
+        while (!unacked.isEmpty() && unacked.peekFirst().getSequence() <= ack.getAckedThrough()) {
+            unacked.pollFirst();
+            count++;
+        }
+        acked.add(count);
+        if (unacked.isEmpty() && pending.isEmpty()) {
+            notifyAll();
+        }
+    }
+
+    private synchronized void onStreamClosed(ClientCallStreamObserver<SensorReading> closed, String reason) {
+        if (stream != closed) {
+            return;
+        }
+        stream = null;
+        if (!unacked.isEmpty()) {
+            resent.add(unacked.size());
+            Iterator<SensorReading> requeue = unacked.descendingIterator();
+            while (requeue.hasNext()) {
+                pending.addFirst(requeue.next());
+            }
+            unacked.clear();
+        }
+        if (!running && pending.isEmpty()) {
+            notifyAll();
+            return;
+        }
+        logger.warning("Reading stream closed (" + reason + "), reconnecting in " + reconnectMillis + " ms");
+        reconnector.schedule(this::connect, reconnectMillis, TimeUnit.MILLISECONDS);
+        reconnectMillis = Math.min(reconnectMillis * 2, MAX_RECONNECT_MILLIS);
+    }
+}
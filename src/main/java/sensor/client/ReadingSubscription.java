@@ -0,0 +1,52 @@
+package sensor.client;
+
+import com.google.protobuf.Empty;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.StreamObserver;
+import sensor.grpc.ReadingResponse;
+
+public class ReadingSubscription implements ClientResponseObserver<Empty, ReadingResponse> {
+
+    private final StreamObserver<ReadingResponse> delegate;
+    private volatile ClientCallStreamObserver<Empty> requestStream;
+    private volatile boolean active = true;
+
+    public ReadingSubscription(StreamObserver<ReadingResponse> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void beforeStart(ClientCallStreamObserver<Empty> requestStream) {
+        this.requestStream = requestStream;
+    }
+
+    @Override
+    public void onNext(ReadingResponse value) {
+        delegate.onNext(value);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        active = false;
+        delegate.onError(t);
+    }
+
+    @Override
+    public void onCompleted() {
+        active = false;
+        delegate.onCompleted();
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void cancel() {
+        active = false;
+        ClientCallStreamObserver<Empty> stream = requestStream;
+        if (stream != null) {
+            stream.cancel("Subscription cancelled", null);
+        }
+    }
+}
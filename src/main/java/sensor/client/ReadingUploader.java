@@ -0,0 +1,556 @@
+package sensor.client;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import retrofit2.Call;
+import retrofit2.Response;
+import sensor.dto.DeltaBatchDto;
+import sensor.dto.Reading;
+import sensor.dto.ReadingDto;
+import sensor.dto.WindowSummary;
+import sensor.grpc.ReadingBatch;
+import sensor.metrics.Counter;
+import sensor.metrics.Histogram;
+import sensor.metrics.MetricsRegistry;
+import sensor.utils.ReadingCodec;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+public class ReadingUploader implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(ReadingUploader.class.getName());
+    private static final MediaType BLOCK_MEDIA_TYPE = MediaType.get("application/octet-stream");
+
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP_OLDEST,
+        DROP_NEWEST,
+        COALESCE
+    }
+
+    public enum UploadFormat {
+        JSON,
+        PROTOBUF,
+        GORILLA
+    }
+
+    private enum Outcome {
+        SENT,
+        UNSUPPORTED,
+        REJECTED,
+        RETRY
+    }
+
+    private final ServerClient serverClient;
+    private final long sensorId;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long blockTimeoutNanos;
+    private final OverflowPolicy overflowPolicy;
+
+    private final ArrayDeque<Reading> queue;
+    private final ArrayDeque<WindowSummary> summaries = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Counter dropped;
+    private final Counter uploaded;
+    private final Counter failures;
+    private final Counter flushErrors;
+    private final Histogram uploadLatency;
+    private final ReentrantLock sendLock = new ReentrantLock();
+    private final ScheduledExecutorService executor;
+    private final boolean ownsExecutor;
+    private final ReadingSpool spool;
+    private boolean replayBackoff;
+    private long replayAfterNanos;
+    private ScheduledFuture<?> flushTask;
+    private volatile boolean running = true;
+    private volatile boolean batchSupported = true;
+    private volatile boolean deltaSupported = true;
+    private volatile boolean deltaEncoding;
+    private volatile boolean protobufSupported = true;
+    private volatile boolean blockSupported = true;
+    private volatile UploadFormat uploadFormat = UploadFormat.JSON;
+    private volatile ReadingStreamUploader stream;
+
+    public ReadingUploader(ServerClient serverClient, long sensorId, int capacity, int batchSize,
+                           long flushIntervalMillis, long blockTimeoutMillis, OverflowPolicy overflowPolicy) {
+        this(serverClient, sensorId, capacity, batchSize, flushIntervalMillis, blockTimeoutMillis, overflowPolicy, null);
+    }
+
+    public ReadingUploader(ServerClient serverClient, long sensorId, int capacity, int batchSize,
+                           long flushIntervalMillis, long blockTimeoutMillis, OverflowPolicy overflowPolicy,
+                           ReadingSpool spool) {
+        this(serverClient, sensorId, capacity, batchSize, flushIntervalMillis, blockTimeoutMillis, overflowPolicy,
+                Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "reading-uploader-" + sensorId);
+                    thread.setDaemon(true);
+                    return thread;
+                }), true, spool);
+    }
+
+    public ReadingUploader(ServerClient serverClient, long sensorId, int capacity, int batchSize,
+                           long flushIntervalMillis, long blockTimeoutMillis, OverflowPolicy overflowPolicy,
+                           ScheduledExecutorService executor, boolean ownsExecutor) {
+        this(serverClient, sensorId, capacity, batchSize, flushIntervalMillis, blockTimeoutMillis, overflowPolicy,
+                executor, ownsExecutor, null);
+    }
+
+    public ReadingUploader(ServerClient serverClient, long sensorId, int capacity, int batchSize,
+                           long flushIntervalMillis, long blockTimeoutMillis, OverflowPolicy overflowPolicy,
+                           ScheduledExecutorService executor, boolean ownsExecutor, ReadingSpool spool) {
+        this.serverClient = serverClient;
+        this.sensorId = sensorId;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+        this.overflowPolicy = overflowPolicy;
+        this.queue = new ArrayDeque<>(capacity);
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.spool = spool;
+        String id = Long.toString(sensorId);
+        MetricsRegistry metrics = MetricsRegistry.DEFAULT;
+        this.dropped = metrics.counter("sensor_upload_dropped_total",
+                "Readings dropped because the upload queue was full or closed.", "sensor", id);
+        this.uploaded = metrics.counter("sensor_uploaded_readings_total",
+                "Readings accepted by the server.", "sensor", id);
+        this.failures = metrics.counter("sensor_upload_failures_total",
+                "Upload requests that failed or were rejected.", "sensor", id);
+        this.flushErrors = metrics.counter("sensor_upload_flush_errors_total",
+                "Flush rounds aborted by an unexpected error; the flush task keeps running.", "sensor", id);
+        this.uploadLatency = metrics.histogram("sensor_upload_seconds",
+                "Latency of one upload request to the server.", "sensor", id);
+        metrics.gauge("sensor_upload_queue_depth", "Readings waiting to be uploaded.",
+                this::getQueueDepth, "sensor", id);
+        if (spool != null) {
+            metrics.gauge("sensor_spool_pending", "Readings persisted in the local spool awaiting replay.",
+                    spool::pending, "sensor", id);
+            metrics.gauge("sensor_spool_bytes", "Disk used by the local spool.", spool::sizeBytes, "sensor", id);
+        }
+    }
+
+    public void start() {
+        flushTask = executor.scheduleWithFixedDelay(() -> flush(true),
+                flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean offer(Reading reading) {
+        lock.lock();
+        try {
+            if (!running) {
+                dropped.increment();
+                return false;
+            }
+            if (queue.size() >= capacity) {
+                switch (overflowPolicy) {
+                    case BLOCK:
+                        long remaining = blockTimeoutNanos;
+                        while (queue.size() >= capacity && remaining > 0) {
+                            remaining = notFull.awaitNanos(remaining);
+                        }
+                        if (queue.size() >= capacity) {
+                            dropped.increment();
+                            return false;
+                        }
+                        break;
+                    case DROP_OLDEST:
+                        queue.pollFirst();
+                        dropped.increment();
+                        break;
+                    case DROP_NEWEST:
+                        dropped.increment();
+                        return false;
+                    case COALESCE:
+                        queue.pollLast();
+                        dropped.increment();
+                        break;
+                }
+            }
+            queue.addLast(reading);
+            if (queue.size() >= batchSize && !sendLock.isLocked() && !requestFlush()) {
+                queue.pollLast();
+                dropped.increment();
+                return false;
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.increment();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Window summaries share the reading queue's capacity bound and are sent ahead of readings on the next
+    // flush. They are not spooled: a summary that cannot be delivered before shutdown is lost.
+    public boolean offerSummary(WindowSummary summary) {
+        lock.lock();
+        try {
+            if (!running) {
+                dropped.increment();
+                return false;
+            }
+            if (summaries.size() >= capacity) {
+                summaries.pollFirst();
+                dropped.increment();
+            }
+            summaries.addLast(summary);
+            if (!requestFlush()) {
+                summaries.pollLast();
+                dropped.increment();
+                return false;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The executor is shut down by close(), or by its owner when it is shared, and an offer that raced
+    // either would never be flushed, so the caller drops it instead of letting the rejection escape.
+    private boolean requestFlush() {
+        try {
+            executor.execute(() -> flush(false));
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get() + (spool == null ? 0 : spool.getDroppedCount());
+    }
+
+    public long getSpooledCount() {
+        return spool == null ? 0 : spool.pending();
+    }
+
+    public boolean isBatchSupported() {
+        return batchSupported;
+    }
+
+    public boolean isDeltaEncoding() {
+        return deltaEncoding;
+    }
+
+    public void setDeltaEncoding(boolean deltaEncoding) {
+        this.deltaEncoding = deltaEncoding;
+    }
+
+    public UploadFormat getUploadFormat() {
+        return uploadFormat;
+    }
+
+    public void setUploadFormat(UploadFormat uploadFormat) {
+        this.uploadFormat = uploadFormat;
+    }
+
+    public ReadingStreamUploader getStream() {
+        return stream;
+    }
+
+    // Hands batches to a shared ReportReadings stream instead of posting them over HTTP. A batch the stream
+    // cannot queue counts as a failed send, so it is spooled or dropped like any other.
+    public void setStream(ReadingStreamUploader stream) {
+        this.stream = stream;
+    }
+
+    // Waits up to drainTimeoutMillis for queued readings to be sent or spooled. An interrupt abandons the drain
+    // and is re-asserted on the calling thread, so try-with-resources callers have nothing to catch.
+    public void close(long drainTimeoutMillis) {
+        MetricsRegistry.DEFAULT.remove("sensor_upload_queue_depth", "sensor", Long.toString(sensorId));
+        MetricsRegistry.DEFAULT.remove("sensor_spool_pending", "sensor", Long.toString(sensorId));
+        MetricsRegistry.DEFAULT.remove("sensor_spool_bytes", "sensor", Long.toString(sensorId));
+        lock.lock();
+        try {
+            running = false;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        Future<?> drain = null;
+        try {
+            drain = executor.submit(this::drain);
+            drain.get(drainTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.warning("Upload executor for sensor " + sensorId + " already shut down, dropping "
+                    + getQueueDepth() + " readings");
+        } catch (TimeoutException e) {
+            drain.cancel(true);
+            logger.warning("Upload queue for sensor " + sensorId + " not drained, dropping " + getQueueDepth() + " readings");
+        } catch (ExecutionException e) {
+            logger.warning("Failed to drain upload queue: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            drain.cancel(true);
+            Thread.currentThread().interrupt();
+            logger.warning("Interrupted while draining upload queue for sensor " + sensorId);
+        } finally {
+            if (ownsExecutor) {
+                executor.shutdownNow();
+            }
+            if (spool != null) {
+                closeSpool();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        close(5000);
+    }
+
+    public void flush(boolean force) {
+        if (!sendLock.tryLock()) {
+            return;
+        }
+        try {
+            sendBatches(force);
+        } catch (RuntimeException e) {
+            flushFailed(e);
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    private void drain() {
+        sendLock.lock();
+        try {
+            replayBackoff = false;
+            sendBatches(true);
+        } catch (RuntimeException e) {
+            flushFailed(e);
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    // An exception escaping the scheduled flush would cancel it for good and silently stop all uploads, so
+    // it ends only this round; the next one retries.
+    private void flushFailed(RuntimeException e) {
+        flushErrors.increment();
+        logger.warning("Upload flush for sensor " + sensorId + " failed: " + e);
+    }
+
+    private void sendBatches(boolean force) {
+        sendSummaries();
+        List<Reading> batch;
+        while (!(batch = takeBatch(force)).isEmpty()) {
+            if (spool == null) {
+                send(batch);
+            } else if (spool.pending() > 0 || !send(batch)) {
+                spool(batch);
+            }
+        }
+        replaySpool();
+    }
+
+    private void sendSummaries() {
+        while (true) {
+            WindowSummary summary;
+            lock.lock();
+            try {
+                summary = summaries.peekFirst();
+            } finally {
+                lock.unlock();
+            }
+            if (summary == null) {
+                return;
+            }
+            long samples = summary.channels().isEmpty() ? 0 : summary.channels().get(0).count();
+            Outcome outcome = execute(serverClient.sendAggregate(sensorId, summary), (int) samples,
+                    "Summary upload for window " + summary.from(), false);
+            if (outcome == Outcome.RETRY) {
+                return;
+            }
+            lock.lock();
+            try {
+                summaries.pollFirst();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void spool(List<Reading> batch) {
+        try {
+            spool.append(batch);
+        } catch (IOException e) {
+            dropped.add(batch.size());
+            logger.warning("Failed to spool " + batch.size() + " readings for sensor " + sensorId + ": " + e.getMessage());
+        }
+    }
+
+    private void replaySpool() {
+        if (spool == null || spool.pending() == 0 || (replayBackoff && System.nanoTime() - replayAfterNanos < 0)) {
+            return;
+        }
+        try {
+            long replayed = 0;
+            List<Reading> batch;
+            while (!(batch = spool.peek(batchSize)).isEmpty()) {
+                if (!send(batch)) {
+                    break;
+                }
+                spool.ack(batch.size());
+                replayed += batch.size();
+            }
+            if (replayed > 0) {
+                logger.info("Replayed " + replayed + " spooled readings for sensor " + sensorId);
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to replay spool for sensor " + sensorId + ": " + e.getMessage());
+        }
+    }
+
+    private void closeSpool() {
+        try {
+            spool.close();
+        } catch (IOException e) {
+            logger.warning("Failed to close spool for sensor " + sensorId + ": " + e.getMessage());
+        }
+    }
+
+    private List<Reading> takeBatch(boolean force) {
+        lock.lock();
+        try {
+            if (queue.isEmpty() || (!force && queue.size() < batchSize)) {
+                return List.of();
+            }
+            int count = Math.min(batchSize, queue.size());
+            List<Reading> batch = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                batch.add(queue.pollFirst());
+            }
+            notFull.signalAll();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean send(List<Reading> batch) {
+        ReadingStreamUploader current = stream;
+        if (current != null) {
+            if (current.offer(sensorId, batch)) {
+                return true;
+            }
+            failures.increment();
+            logger.warning("Reading stream full, " + batch.size() + " readings not queued for sensor " + sensorId);
+            return false;
+        }
+        if (deltaEncoding && deltaSupported) {
+            Outcome outcome = execute(serverClient.sendReadingDeltas(sensorId, DeltaBatchDto.encode(batch)),
+                    batch.size(), "Delta upload of " + batch.size() + " readings", true);
+            if (outcome != Outcome.UNSUPPORTED) {
+                return outcome != Outcome.RETRY;
+            }
+            deltaSupported = false;
+            logger.warning("Server has no delta endpoint, falling back to plain batch uploads");
+        }
+        if (uploadFormat == UploadFormat.GORILLA && blockSupported) {
+            ReadingCodec codec = ReadingCodec.Type.GORILLA.codec();
+            Outcome outcome = execute(serverClient.sendReadingBlock(sensorId, codec.id(),
+                            RequestBody.create(codec.encode(batch), BLOCK_MEDIA_TYPE)), batch.size(),
+                    "Block upload of " + batch.size() + " readings", true);
+            if (outcome != Outcome.UNSUPPORTED) {
+                return outcome != Outcome.RETRY;
+            }
+            blockSupported = false;
+            logger.warning("Server does not accept encoded blocks, falling back to protobuf");
+        }
+        if (uploadFormat != UploadFormat.JSON && protobufSupported && batchSupported) {
+            ReadingBatch.Builder readings = ReadingBatch.newBuilder();
+            for (Reading reading : batch) {
+                readings.addReadings(reading.toResponse());
+            }
+            Outcome outcome = execute(serverClient.sendReadings(sensorId, readings.build()), batch.size(),
+                    "Protobuf upload of " + batch.size() + " readings", true);
+            if (outcome != Outcome.UNSUPPORTED) {
+                return outcome != Outcome.RETRY;
+            }
+            protobufSupported = false;
+            logger.warning("Server does not accept protobuf uploads, falling back to JSON");
+        }
+        if (batchSupported) {
+            List<ReadingDto> dtos = new ArrayList<>(batch.size());
+            for (Reading reading : batch) {
+                dtos.add(reading.toDto());
+            }
+            Outcome outcome = execute(serverClient.sendReadings(sensorId, dtos), batch.size(),
+                    "Batch upload of " + batch.size() + " readings", true);
+            if (outcome != Outcome.UNSUPPORTED) {
+                return outcome != Outcome.RETRY;
+            }
+            batchSupported = false;
+            logger.warning("Server has no batch endpoint, falling back to single reading uploads");
+        }
+        for (Reading reading : batch) {
+            if (execute(serverClient.sendReading(sensorId, reading.toDto()), 1, "Single reading upload", false) == Outcome.RETRY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Outcome execute(Call<Void> call, int count, String description, boolean hasFallback) {
+        long start = System.nanoTime();
+        try {
+            Response<Void> response = call.execute();
+            if (response.isSuccessful()) {
+                uploaded.add(count);
+                return Outcome.SENT;
+            }
+            if (hasFallback && (response.code() == 404 || response.code() == 405 || response.code() == 415
+                    || response.code() == 501)) {
+                return Outcome.UNSUPPORTED;
+            }
+            failures.increment();
+            logger.warning(description + " failed: HTTP " + response.code());
+            return isPermanentFailure(response.code()) ? Outcome.REJECTED : Outcome.RETRY;
+        } catch (IOException e) {
+            failures.increment();
+            logger.warning(description + " failed: " + e.getMessage());
+            return isPermanentFailure(0) ? Outcome.REJECTED : Outcome.RETRY;
+        } finally {
+            uploadLatency.observeNanos(System.nanoTime() - start);
+        }
+    }
+
+    private boolean isPermanentFailure(int code) {
+        if (code >= 400 && code < 500 && code != 408 && code != 429) {
+            return true;
+        }
+        replayBackoff = true;
+        replayAfterNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        return false;
+    }
+}
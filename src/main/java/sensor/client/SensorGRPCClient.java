@@ -1,40 +1,213 @@
 package sensor.client;
 
+import io.grpc.ClientInterceptor;
 import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
 import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
 
 import com.google.protobuf.Empty;
+import io.grpc.stub.MetadataUtils;
+import io.grpc.stub.StreamObserver;
+import sensor.dto.Reading;
 import sensor.grpc.SensorServiceGrpc;
+import sensor.grpc.AggregatesRequest;
+import sensor.grpc.AggregatesResponse;
+import sensor.grpc.ConditionalReadingRequest;
+import sensor.grpc.ConditionalReadingResponse;
+import sensor.grpc.GossipMessage;
+import sensor.grpc.ProbeRequest;
+import sensor.grpc.ProbeResponse;
 import sensor.grpc.ReadingResponse;
+import sensor.grpc.ReadingsChunk;
+import sensor.grpc.ReadingsRequest;
+import sensor.grpc.WindowStatsRequest;
+import sensor.grpc.WindowStatsResponse;
+import sensor.metrics.GrpcMetrics;
+import sensor.metrics.MetricsRegistry;
+import sensor.server.SensorGRPCServer;
+import sensor.utils.ReadingCodec;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class SensorGRPCClient {
+    // Shared so short-lived clients, such as gossip probes, reuse the per-method metric children.
+    private static final ClientInterceptor METRICS = GrpcMetrics.clientInterceptor(MetricsRegistry.DEFAULT);
 
-    private final ManagedChannel channel;
+    private final Runnable release;
+    private final AtomicBoolean released = new AtomicBoolean();
     private final SensorServiceGrpc.SensorServiceBlockingStub stub;
+    private final SensorServiceGrpc.SensorServiceStub asyncStub;
 
     public SensorGRPCClient(String host, int port) {
-        this.channel = NettyChannelBuilder
+        this(host, port, -1);
+    }
+
+    public SensorGRPCClient(String host, int port, long sensorId) {
+        this(NettyChannelBuilder
                 .forAddress(host, port)
                 .usePlaintext()
-                .build();
-        this.stub = SensorServiceGrpc.newBlockingStub(channel);
+                .build(), sensorId);
+    }
+
+    private SensorGRPCClient(ManagedChannel channel, long sensorId) {
+        this(channel, sensorId, channel::shutdown);
+    }
+
+    public SensorGRPCClient(ManagedChannel channel, long sensorId, Runnable release) {
+        this.release = release;
+        SensorServiceGrpc.SensorServiceBlockingStub blockingStub = SensorServiceGrpc.newBlockingStub(channel)
+                .withInterceptors(METRICS);
+        SensorServiceGrpc.SensorServiceStub stub = SensorServiceGrpc.newStub(channel).withInterceptors(METRICS);
+        if (sensorId >= 0) {
+            Metadata headers = new Metadata();
+            headers.put(SensorGRPCServer.SENSOR_ID_HEADER, Long.toString(sensorId));
+            blockingStub = blockingStub.withInterceptors(MetadataUtils.newAttachHeadersInterceptor(headers));
+            stub = stub.withInterceptors(MetadataUtils.newAttachHeadersInterceptor(headers));
+        }
+        this.stub = blockingStub;
+        this.asyncStub = stub;
     }
 
     public ReadingResponse getLastReading() {
         return stub.getLastReading(Empty.getDefaultInstance());
     }
 
-    public void shutdown() {
-        if (channel != null && !channel.isShutdown()) {
-            channel.shutdown();
-            try {
-                if (!channel.awaitTermination(5, java.util.concurrent.TimeUnit.SECONDS)) {
-                    channel.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                channel.shutdownNow();
-                Thread.currentThread().interrupt();
+    public ReadingResponse getLastReading(long deadlineMillis) {
+        return stub.withDeadlineAfter(deadlineMillis, TimeUnit.MILLISECONDS)
+                .getLastReading(Empty.getDefaultInstance());
+    }
+
+    public void getLastReading(long deadlineMillis, StreamObserver<ReadingResponse> callback) {
+        asyncStub.withDeadlineAfter(deadlineMillis, TimeUnit.MILLISECONDS)
+                .getLastReading(Empty.getDefaultInstance(), callback);
+    }
+
+    public CompletableFuture<ReadingResponse> getLastReadingAsync(long deadlineMillis) {
+        CompletableFuture<ReadingResponse> future = new CompletableFuture<>();
+        getLastReading(deadlineMillis, new StreamObserver<>() {
+            @Override
+            public void onNext(ReadingResponse value) {
+                future.complete(value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                future.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                future.completeExceptionally(new IllegalStateException("No reading returned"));
+            }
+        });
+        return future;
+    }
+
+    public CompletableFuture<ConditionalReadingResponse> getLastReadingIfModifiedAsync(long knownVersion,
+                                                                                       long deadlineMillis) {
+        CompletableFuture<ConditionalReadingResponse> future = new CompletableFuture<>();
+        asyncStub.withDeadlineAfter(deadlineMillis, TimeUnit.MILLISECONDS).getLastReadingIfModified(
+                ConditionalReadingRequest.newBuilder().setKnownVersion(knownVersion).build(),
+                new StreamObserver<>() {
+                    @Override
+                    public void onNext(ConditionalReadingResponse value) {
+                        future.complete(value);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        future.completeExceptionally(t);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        future.completeExceptionally(new IllegalStateException("No reading returned"));
+                    }
+                });
+        return future;
+    }
+
+    public Iterator<ReadingsChunk> getReadings(long from, long to) {
+        return stub.getReadings(ReadingsRequest.newBuilder().setFrom(from).setTo(to).build());
+    }
+
+    // Fetches history as codec-encoded blocks. Servers that predate the codec field send plain readings, which
+    // are accepted too.
+    public List<Reading> getHistory(long from, long to, ReadingCodec codec) {
+        List<Reading> history = new ArrayList<>();
+        Iterator<ReadingsChunk> chunks = stub.getReadings(ReadingsRequest.newBuilder()
+                .setFrom(from)
+                .setTo(to)
+                .setCodec(codec.id())
+                .build());
+        while (chunks.hasNext()) {
+            ReadingsChunk chunk = chunks.next();
+            if (chunk.getCodec() != 0) {
+                history.addAll(ReadingCodec.Type.forId(chunk.getCodec()).decode(chunk.getBlock().toByteArray()));
+            }
+            for (ReadingResponse reading : chunk.getReadingsList()) {
+                history.add(Reading.fromResponse(reading));
+            }
+        }
+        return history;
+    }
+
+    public WindowStatsResponse getWindowStats(int windowSeconds) {
+        return stub.getWindowStats(WindowStatsRequest.newBuilder().setWindowSeconds(windowSeconds).build());
+    }
+
+    public AggregatesResponse getAggregates(int windows, boolean merge, boolean includeCurrent) {
+        return stub.getAggregates(AggregatesRequest.newBuilder()
+                .setWindows(windows)
+                .setMerge(merge)
+                .setIncludeCurrent(includeCurrent)
+                .build());
+    }
+
+    public GossipMessage gossip(GossipMessage message, long deadlineMillis) {
+        return stub.withDeadlineAfter(deadlineMillis, TimeUnit.MILLISECONDS).gossip(message);
+    }
+
+    public CompletableFuture<GossipMessage> gossipAsync(GossipMessage message, long deadlineMillis) {
+        CompletableFuture<GossipMessage> future = new CompletableFuture<>();
+        asyncStub.withDeadlineAfter(deadlineMillis, TimeUnit.MILLISECONDS).gossip(message, new StreamObserver<>() {
+            @Override
+            public void onNext(GossipMessage value) {
+                future.complete(value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                future.completeExceptionally(t);
             }
+
+            @Override
+            public void onCompleted() {
+                future.completeExceptionally(new IllegalStateException("No gossip reply returned"));
+            }
+        });
+        return future;
+    }
+
+    public ProbeResponse probeMember(long targetId, long deadlineMillis) {
+        return stub.withDeadlineAfter(deadlineMillis, TimeUnit.MILLISECONDS)
+                .probeMember(ProbeRequest.newBuilder().setTargetId(targetId).build());
+    }
+
+    public ReadingSubscription subscribe(StreamObserver<ReadingResponse> observer) {
+        ReadingSubscription subscription = new ReadingSubscription(observer);
+        asyncStub.streamReadings(Empty.getDefaultInstance(), subscription);
+        return subscription;
+    }
+
+    public void shutdown() {
+        if (released.compareAndSet(false, true)) {
+            release.run();
         }
     }
 
@@ -1,12 +1,19 @@
 package sensor.client;
 
+import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
 import retrofit2.Call;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.converter.protobuf.ProtoConverterFactory;
 import retrofit2.http.*;
 import sensor.Sensor;
+import sensor.dto.DeltaBatchDto;
 import sensor.dto.ReadingDto;
+import sensor.dto.WindowSummary;
+import sensor.grpc.ReadingBatch;
 
+import java.util.List;
 import java.util.Map;
 
 public interface ServerClient {
@@ -14,15 +21,47 @@ public interface ServerClient {
     @POST("/api/sensors/register")
     Call<Map<String, Object>> registerSensor(@Body Map<String, Object> sensorData);
 
+    @GET("/api/sensors")
+    Call<List<Sensor>> getSensors(@Header("If-None-Match") String etag);
+
     @GET("/api/sensors/{id}/nearest")
     Call<Sensor> getNearest(@Path("id") long id);
 
+    @GET("/api/sensors/{id}/nearest/{k}")
+    Call<List<Sensor>> getNearest(@Path("id") long id, @Path("k") int k);
+
     @POST("/api/sensors/{id}/readings")
     Call<Void> sendReading(@Path("id") long id, @Body ReadingDto reading);
 
+    @POST("/api/sensors/{id}/readings/batch")
+    Call<Void> sendReadings(@Path("id") long id, @Body List<ReadingDto> readings);
+
+    @POST("/api/sensors/{id}/readings/batch")
+    Call<Void> sendReadings(@Path("id") long id, @Body ReadingBatch readings);
+
+    @POST("/api/sensors/{id}/readings/block")
+    Call<Void> sendReadingBlock(@Path("id") long id, @Header("X-Reading-Codec") int codec, @Body RequestBody block);
+
+    @POST("/api/sensors/{id}/readings/delta")
+    Call<Void> sendReadingDeltas(@Path("id") long id, @Body DeltaBatchDto batch);
+
+    @POST("/api/sensors/{id}/aggregates")
+    Call<Void> sendAggregate(@Path("id") long id, @Body WindowSummary summary);
+
     static ServerClient create(String baseUrl) {
         Retrofit retrofit = new Retrofit.Builder()
                 .baseUrl(baseUrl)
+                .addConverterFactory(ProtoConverterFactory.create())
+                .addConverterFactory(GsonConverterFactory.create())
+                .build();
+        return retrofit.create(ServerClient.class);
+    }
+
+    static ServerClient create(String baseUrl, OkHttpClient httpClient) {
+        Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl(baseUrl)
+                .client(httpClient)
+                .addConverterFactory(ProtoConverterFactory.create())
                 .addConverterFactory(GsonConverterFactory.create())
                 .build();
         return retrofit.create(ServerClient.class);
@@ -0,0 +1,23 @@
+package sensor.dto;
+
+import sensor.grpc.ChannelAggregate;
+
+public record ChannelSummary(String channel, long count, double min, double max, double mean, double variance,
+                             double[] quantiles) {
+
+    public ChannelAggregate toResponse() {
+        ChannelAggregate.Builder builder = ChannelAggregate.newBuilder()
+                .setChannel(channel)
+                .setCount(count);
+        if (count > 0) {
+            builder.setMin(min)
+                    .setMax(max)
+                    .setMean(mean)
+                    .setVariance(variance);
+            for (double quantile : quantiles) {
+                builder.addQuantiles(quantile);
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,73 @@
+package sensor.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DeltaBatchDto {
+    private long baseTimestamp;
+    private List<ReadingDeltaDto> readings;
+
+    public static DeltaBatchDto encode(List<Reading> batch) {
+        DeltaBatchDto dto = new DeltaBatchDto();
+        dto.readings = new ArrayList<>(batch.size());
+        Reading previous = null;
+        for (Reading reading : batch) {
+            ReadingDeltaDto delta = new ReadingDeltaDto();
+            if (previous == null) {
+                dto.baseTimestamp = reading.timestamp();
+            } else {
+                delta.setDt(reading.timestamp() - previous.timestamp());
+            }
+            delta.setTemperature(changed(previous == null ? null : previous.temperature(), reading.temperature()));
+            delta.setPressure(changed(previous == null ? null : previous.pressure(), reading.pressure()));
+            delta.setHumidity(changed(previous == null ? null : previous.humidity(), reading.humidity()));
+            delta.setCo(changed(previous == null ? null : previous.co(), reading.co()));
+            delta.setSo2(changed(previous == null ? null : previous.so2(), reading.so2()));
+            dto.readings.add(delta);
+            previous = reading;
+        }
+        return dto;
+    }
+
+    public List<Reading> decode() {
+        List<Reading> batch = new ArrayList<>(readings.size());
+        Reading previous = Reading.EMPTY.withTimestamp(baseTimestamp);
+        for (ReadingDeltaDto delta : readings) {
+            Reading reading = new Reading(
+                    previous.timestamp() + delta.getDt(),
+                    orElse(delta.getTemperature(), previous.temperature()),
+                    orElse(delta.getPressure(), previous.pressure()),
+                    orElse(delta.getHumidity(), previous.humidity()),
+                    orElse(delta.getCo(), previous.co()),
+                    orElse(delta.getSo2(), previous.so2())
+            );
+            batch.add(reading);
+            previous = reading;
+        }
+        return batch;
+    }
+
+    private static Double changed(Double previous, double value) {
+        return previous != null && Double.compare(previous, value) == 0 ? null : value;
+    }
+
+    private static double orElse(Double value, double previous) {
+        return value == null ? previous : value;
+    }
+
+    public long getBaseTimestamp() {
+        return baseTimestamp;
+    }
+
+    public void setBaseTimestamp(long baseTimestamp) {
+        this.baseTimestamp = baseTimestamp;
+    }
+
+    public List<ReadingDeltaDto> getReadings() {
+        return readings;
+    }
+
+    public void setReadings(List<ReadingDeltaDto> readings) {
+        this.readings = readings;
+    }
+}
@@ -0,0 +1,45 @@
+package sensor.dto;
+
+import sensor.grpc.ReadingResponse;
+
+public record Reading(long timestamp, double temperature, double pressure, double humidity, double co, double so2) {
+
+    public static final Reading EMPTY = new Reading(0L, 0.0, 0.0, 0.0, 0.0, 0.0);
+
+    public static Reading fromResponse(ReadingResponse response) {
+        return new Reading(
+                response.getTimestamp(),
+                response.getTemperature(),
+                response.getPressure(),
+                response.getHumidity(),
+                response.getCo(),
+                response.getSo2()
+        );
+    }
+
+    public Reading withTimestamp(long timestamp) {
+        return new Reading(timestamp, temperature, pressure, humidity, co, so2);
+    }
+
+    public ReadingResponse toResponse() {
+        return ReadingResponse.newBuilder()
+                .setTemperature(temperature)
+                .setPressure(pressure)
+                .setHumidity(humidity)
+                .setCo(co)
+                .setSo2(so2)
+                .setTimestamp(timestamp)
+                .build();
+    }
+
+    public ReadingDto toDto() {
+        ReadingDto dto = new ReadingDto();
+        dto.setTimestamp(timestamp);
+        dto.setTemperature(temperature);
+        dto.setPressure(pressure);
+        dto.setHumidity(humidity);
+        dto.setCo(co);
+        dto.setSo2(so2);
+        return dto;
+    }
+}
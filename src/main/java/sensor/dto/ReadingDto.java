@@ -1,12 +1,21 @@
 package sensor.dto;
 
 public class ReadingDto {
+    private long timestamp;
     private double temperature;
     private double pressure;
     private double humidity;
     private double co;
     private double so2;
 
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
     public double getTemperature() {
         return temperature;
     }
@@ -0,0 +1,19 @@
+package sensor.dto;
+
+import sensor.grpc.WindowStatsResponse;
+
+public record WindowStats(long from, long to, int count, Reading min, Reading max, Reading mean) {
+
+    public WindowStatsResponse toResponse() {
+        WindowStatsResponse.Builder builder = WindowStatsResponse.newBuilder()
+                .setFrom(from)
+                .setTo(to)
+                .setCount(count);
+        if (count > 0) {
+            builder.setMin(min.toResponse())
+                    .setMax(max.toResponse())
+                    .setMean(mean.toResponse());
+        }
+        return builder.build();
+    }
+}
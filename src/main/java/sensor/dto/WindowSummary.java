@@ -0,0 +1,18 @@
+package sensor.dto;
+
+import sensor.grpc.WindowAggregate;
+
+import java.util.List;
+
+public record WindowSummary(long from, long to, double[] quantileLevels, List<ChannelSummary> channels) {
+
+    public WindowAggregate toResponse() {
+        WindowAggregate.Builder builder = WindowAggregate.newBuilder()
+                .setFrom(from)
+                .setTo(to);
+        for (ChannelSummary channel : channels) {
+            builder.addChannels(channel.toResponse());
+        }
+        return builder.build();
+    }
+}
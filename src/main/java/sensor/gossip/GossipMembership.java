@@ -0,0 +1,385 @@
+package sensor.gossip;
+
+import io.grpc.StatusRuntimeException;
+import sensor.SensorConfig;
+import sensor.client.NeighborClientFactory;
+import sensor.client.NeighborLocator;
+import sensor.client.SensorGRPCClient;
+import sensor.grpc.GossipMessage;
+import sensor.grpc.Member;
+import sensor.grpc.MemberState;
+import sensor.metrics.Counter;
+import sensor.metrics.MetricsRegistry;
+import sensor.utils.NeighborInfo;
+import sensor.utils.SpatialIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+public class GossipMembership implements NeighborLocator, AutoCloseable {
+    private static final Logger logger = Logger.getLogger(GossipMembership.class.getName());
+
+    private final NeighborInfo self;
+    private final List<NeighborInfo> seeds;
+    private final NeighborClientFactory clientFactory;
+    private final long intervalMillis;
+    private final long probeTimeoutMillis;
+    private final long suspicionNanos;
+    private final long deadRetentionNanos;
+    private final int indirectProbes;
+    private final int maxGossipMembers;
+    private final ScheduledExecutorService executor;
+    private final boolean ownsExecutor;
+    private final Map<Long, Entry> members = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final Counter suspicions;
+    private final Counter failedProbes;
+    private final List<Long> probeOrder = new ArrayList<>();
+    private volatile long incarnation = System.currentTimeMillis();
+    private int probeIndex;
+    private SpatialIndex index;
+    private long indexVersion = -1;
+    private ScheduledFuture<?> gossipTask;
+
+    public GossipMembership(NeighborInfo self, List<NeighborInfo> seeds, NeighborClientFactory clientFactory,
+                            SensorConfig config) {
+        this(self, seeds, clientFactory, config, Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "sensor-gossip-" + self.getId());
+            thread.setDaemon(true);
+            return thread;
+        }), true);
+    }
+
+    public GossipMembership(NeighborInfo self, List<NeighborInfo> seeds, NeighborClientFactory clientFactory,
+                            SensorConfig config, ScheduledExecutorService executor, boolean ownsExecutor) {
+        this.self = self;
+        this.seeds = List.copyOf(seeds);
+        this.clientFactory = clientFactory;
+        this.intervalMillis = config.getGossipIntervalMillis();
+        this.probeTimeoutMillis = config.getGossipProbeTimeoutMillis();
+        this.suspicionNanos = TimeUnit.MILLISECONDS.toNanos(config.getGossipSuspicionMillis());
+        this.deadRetentionNanos = TimeUnit.MILLISECONDS.toNanos(config.getGossipDeadRetentionMillis());
+        this.indirectProbes = config.getGossipIndirectProbes();
+        this.maxGossipMembers = config.getGossipMaxMembers();
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        String id = Long.toString(self.getId());
+        MetricsRegistry metrics = MetricsRegistry.DEFAULT;
+        this.suspicions = metrics.counter("sensor_gossip_suspicions_total",
+                "Members this sensor marked as suspect after failed direct and indirect probes.", "sensor", id);
+        this.failedProbes = metrics.counter("sensor_gossip_failed_probes_total",
+                "Direct gossip probes that got no answer.", "sensor", id);
+        metrics.gauge("sensor_gossip_members", "Members this sensor currently considers alive or suspect.",
+                this::liveMembers, "sensor", id);
+    }
+
+    public static List<NeighborInfo> parseSeeds(String seeds) {
+        List<NeighborInfo> result = new ArrayList<>();
+        if (seeds == null || seeds.isBlank()) {
+            return result;
+        }
+        for (String seed : seeds.split(",")) {
+            String address = seed.trim();
+            long id = -1;
+            int slash = address.indexOf('/');
+            if (slash >= 0) {
+                id = Long.parseLong(address.substring(slash + 1));
+                address = address.substring(0, slash);
+            }
+            int colon = address.lastIndexOf(':');
+            result.add(new NeighborInfo(id, address.substring(0, colon), Integer.parseInt(address.substring(colon + 1))));
+        }
+        return result;
+    }
+
+    public void start() {
+        gossipTask = executor.scheduleWithFixedDelay(this::tick,
+                ThreadLocalRandom.current().nextLong(intervalMillis), intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    @Override
+    public synchronized List<NeighborInfo> nearest(long sensorId, double latitude, double longitude, int k) {
+        long current = version.get();
+        if (index == null || indexVersion != current) {
+            List<NeighborInfo> alive = new ArrayList<>(members.size());
+            for (Entry entry : members.values()) {
+                if (entry.member.getState() != MemberState.DEAD) {
+                    alive.add(toInfo(entry.member));
+                }
+            }
+            index = new SpatialIndex(alive);
+            indexVersion = current;
+        }
+        return index.nearest(latitude, longitude, k, sensorId);
+    }
+
+    public int liveMembers() {
+        int count = 0;
+        for (Entry entry : members.values()) {
+            if (entry.member.getState() != MemberState.DEAD) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public GossipMessage onGossip(GossipMessage request) {
+        merge(request.getSender());
+        for (Member member : request.getMembersList()) {
+            merge(member);
+        }
+        return message(request.getSender().getId());
+    }
+
+    // Answers an indirect probe without blocking the calling thread: the ProbeMember handler may run on a
+    // transport event loop, which the probed member can share in host mode.
+    public CompletableFuture<Boolean> onProbe(long targetId) {
+        Entry entry = members.get(targetId);
+        if (entry == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        NeighborInfo target = toInfo(entry.member);
+        SensorGRPCClient client = clientFactory.create(target);
+        return client.gossipAsync(message(target.getId()), probeTimeoutMillis)
+                .handle((reply, error) -> {
+                    client.shutdown();
+                    if (error != null) {
+                        return false;
+                    }
+                    mergeReply(reply);
+                    return true;
+                });
+    }
+
+    private void tick() {
+        try {
+            expire();
+            Member target = nextTarget();
+            if (target == null) {
+                for (NeighborInfo seed : seeds) {
+                    if (seed.getId() != self.getId()) {
+                        exchange(seed);
+                    }
+                }
+                return;
+            }
+            if (exchange(toInfo(target))) {
+                return;
+            }
+            failedProbes.increment();
+            for (Member helper : helpers(target.getId())) {
+                if (probeVia(helper, target.getId())) {
+                    return;
+                }
+            }
+            suspect(target);
+        } catch (RuntimeException e) {
+            logger.warning("Sensor " + self.getId() + " gossip round failed: " + e.getMessage());
+        }
+    }
+
+    private boolean exchange(NeighborInfo target) {
+        SensorGRPCClient client = clientFactory.create(target);
+        try {
+            mergeReply(client.gossip(message(target.getId()), probeTimeoutMillis));
+            return true;
+        } catch (StatusRuntimeException e) {
+            return false;
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    private void mergeReply(GossipMessage reply) {
+        merge(reply.getSender());
+        for (Member member : reply.getMembersList()) {
+            merge(member);
+        }
+    }
+
+    private boolean probeVia(Member helper, long targetId) {
+        SensorGRPCClient client = clientFactory.create(toInfo(helper));
+        try {
+            return client.probeMember(targetId, 2 * probeTimeoutMillis).getAck();
+        } catch (StatusRuntimeException e) {
+            return false;
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    private GossipMessage message(long recipientId) {
+        GossipMessage.Builder message = GossipMessage.newBuilder().setSender(selfMember());
+        Entry recipient = members.get(recipientId);
+        if (recipient != null && recipient.member.getState() != MemberState.ALIVE) {
+            message.addMembers(recipient.member);
+        }
+        List<Entry> sample = new ArrayList<>(members.values());
+        if (sample.size() > maxGossipMembers) {
+            Collections.shuffle(sample, ThreadLocalRandom.current());
+        }
+        for (Entry entry : sample) {
+            if (message.getMembersCount() >= maxGossipMembers) {
+                break;
+            }
+            if (entry != recipient) {
+                message.addMembers(entry.member);
+            }
+        }
+        return message.build();
+    }
+
+    private void merge(Member incoming) {
+        if (incoming.getId() == self.getId()) {
+            if (incoming.getState() != MemberState.ALIVE && incoming.getIncarnation() >= incarnation) {
+                incarnation = incoming.getIncarnation() + 1;
+                logger.fine("Sensor " + self.getId() + " refuted suspicion, incarnation " + incarnation);
+            }
+            return;
+        }
+        boolean[] changed = new boolean[1];
+        members.compute(incoming.getId(), (id, current) -> {
+            if (current == null) {
+                if (incoming.getState() == MemberState.DEAD) {
+                    return null;
+                }
+                changed[0] = true;
+                return new Entry(incoming, System.nanoTime());
+            }
+            if (!supersedes(incoming, current.member)) {
+                return current;
+            }
+            changed[0] = (incoming.getState() == MemberState.DEAD) != (current.member.getState() == MemberState.DEAD);
+            return new Entry(incoming, System.nanoTime());
+        });
+        if (changed[0]) {
+            version.incrementAndGet();
+        }
+    }
+
+    private void suspect(Member target) {
+        members.computeIfPresent(target.getId(), (id, current) -> {
+            if (current.member.getState() != MemberState.ALIVE || current.member.getIncarnation() != target.getIncarnation()) {
+                return current;
+            }
+            suspicions.increment();
+            logger.fine("Sensor " + self.getId() + " suspects member " + id);
+            return new Entry(current.member.toBuilder().setState(MemberState.SUSPECT).build(), System.nanoTime());
+        });
+    }
+
+    private void expire() {
+        long now = System.nanoTime();
+        for (Entry entry : members.values()) {
+            Member member = entry.member;
+            if (member.getState() == MemberState.SUSPECT && now - entry.updatedNanos > suspicionNanos) {
+                if (members.replace(member.getId(), entry,
+                        new Entry(member.toBuilder().setState(MemberState.DEAD).build(), now))) {
+                    version.incrementAndGet();
+                    logger.info("Sensor " + self.getId() + " declared member " + member.getId() + " dead");
+                }
+            } else if (member.getState() == MemberState.DEAD && now - entry.updatedNanos > deadRetentionNanos) {
+                members.remove(member.getId(), entry);
+            }
+        }
+    }
+
+    private Member nextTarget() {
+        while (true) {
+            if (probeIndex >= probeOrder.size()) {
+                probeOrder.clear();
+                for (Entry entry : members.values()) {
+                    if (entry.member.getState() != MemberState.DEAD) {
+                        probeOrder.add(entry.member.getId());
+                    }
+                }
+                if (probeOrder.isEmpty()) {
+                    return null;
+                }
+                Collections.shuffle(probeOrder, ThreadLocalRandom.current());
+                probeIndex = 0;
+            }
+            Entry entry = members.get(probeOrder.get(probeIndex++));
+            if (entry != null && entry.member.getState() != MemberState.DEAD) {
+                return entry.member;
+            }
+        }
+    }
+
+    private List<Member> helpers(long targetId) {
+        List<Member> candidates = new ArrayList<>();
+        for (Entry entry : members.values()) {
+            if (entry.member.getState() == MemberState.ALIVE && entry.member.getId() != targetId) {
+                candidates.add(entry.member);
+            }
+        }
+        Collections.shuffle(candidates, ThreadLocalRandom.current());
+        return candidates.subList(0, Math.min(indirectProbes, candidates.size()));
+    }
+
+    private Member selfMember() {
+        return Member.newBuilder()
+                .setId(self.getId())
+                .setIp(self.getIp())
+                .setPort(self.getPort())
+                .setLatitude(self.getLatitude())
+                .setLongitude(self.getLongitude())
+                .setIncarnation(incarnation)
+                .setState(MemberState.ALIVE)
+                .build();
+    }
+
+    private static boolean supersedes(Member incoming, Member current) {
+        if (incoming.getIncarnation() != current.getIncarnation()) {
+            return incoming.getIncarnation() > current.getIncarnation();
+        }
+        return incoming.getState().getNumber() > current.getState().getNumber();
+    }
+
+    private static NeighborInfo toInfo(Member member) {
+        return new NeighborInfo(member.getId(), member.getIp(), member.getPort(),
+                member.getLatitude(), member.getLongitude());
+    }
+
+    @Override
+    public void close() {
+        if (gossipTask != null) {
+            gossipTask.cancel(false);
+        }
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+        MetricsRegistry.DEFAULT.remove("sensor_gossip_members", "sensor", Long.toString(self.getId()));
+    }
+
+    private static class Entry {
+        private final Member member;
+        private final long updatedNanos;
+
+        private Entry(Member member, long updatedNanos) {
+            this.member = member;
+            this.updatedNanos = updatedNanos;
+        }
+    }
+}
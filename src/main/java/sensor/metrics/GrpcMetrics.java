@@ -0,0 +1,112 @@
+package sensor.metrics;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.ForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class GrpcMetrics {
+
+    private GrpcMetrics() {
+    }
+
+    public static ServerInterceptor serverInterceptor(MetricsRegistry registry) {
+        Map<MethodDescriptor<?, ?>, MethodMetrics> methods = new ConcurrentHashMap<>();
+        return new ServerInterceptor() {
+            @Override
+            public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                         ServerCallHandler<ReqT, RespT> next) {
+                long start = System.nanoTime();
+                MethodMetrics metrics = methods.computeIfAbsent(call.getMethodDescriptor(), method ->
+                        new MethodMetrics(registry, method, "grpc_server_requests_total",
+                                "gRPC calls handled by the sensor server.", "grpc_server_handling_seconds",
+                                "Unary gRPC call handling time."));
+                return next.startCall(new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+                    @Override
+                    public void close(Status status, Metadata trailers) {
+                        metrics.record(status, start);
+                        super.close(status, trailers);
+                    }
+                }, headers);
+            }
+        };
+    }
+
+    public static ClientInterceptor clientInterceptor(MetricsRegistry registry) {
+        Map<MethodDescriptor<?, ?>, MethodMetrics> methods = new ConcurrentHashMap<>();
+        return new ClientInterceptor() {
+            @Override
+            public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                                       CallOptions callOptions, Channel next) {
+                MethodMetrics metrics = methods.computeIfAbsent(method, descriptor ->
+                        new MethodMetrics(registry, descriptor, "grpc_client_requests_total",
+                                "gRPC calls made to neighbor sensors.", "grpc_client_seconds",
+                                "Unary gRPC call latency to neighbor sensors."));
+                return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+                    @Override
+                    public void start(Listener<RespT> responseListener, Metadata headers) {
+                        long start = System.nanoTime();
+                        super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                            @Override
+                            public void onClose(Status status, Metadata trailers) {
+                                metrics.record(status, start);
+                                super.onClose(status, trailers);
+                            }
+                        }, headers);
+                    }
+                };
+            }
+        };
+    }
+
+    // Registry children for one method, resolved when the method is first called so the per-call path is an
+    // array read. Counters per status code are created on first use, keeping codes that never occur out of
+    // the scrape.
+    private static class MethodMetrics {
+        private static final Status.Code[] CODES = Status.Code.values();
+
+        private final MetricsRegistry registry;
+        private final String method;
+        private final String requestsName;
+        private final String requestsHelp;
+        private final AtomicReferenceArray<Counter> requests = new AtomicReferenceArray<>(CODES.length);
+        private final Histogram latency;
+
+        MethodMetrics(MetricsRegistry registry, MethodDescriptor<?, ?> descriptor, String requestsName,
+                      String requestsHelp, String latencyName, String latencyHelp) {
+            this.registry = registry;
+            this.method = descriptor.getFullMethodName();
+            this.requestsName = requestsName;
+            this.requestsHelp = requestsHelp;
+            this.latency = descriptor.getType() == MethodDescriptor.MethodType.UNARY
+                    ? registry.histogram(latencyName, latencyHelp, "method", method)
+                    : null;
+        }
+
+        void record(Status status, long startNanos) {
+            int code = status.getCode().ordinal();
+            Counter counter = requests.get(code);
+            if (counter == null) {
+                counter = registry.counter(requestsName, requestsHelp, "method", method, "code", CODES[code].name());
+                requests.set(code, counter);
+            }
+            counter.increment();
+            if (latency != null) {
+                latency.observeNanos(System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package sensor.server;
+
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import sensor.grpc.ReadingCollectorGrpc;
+import sensor.grpc.ReportAck;
+import sensor.grpc.SensorReading;
+import sensor.metrics.GrpcMetrics;
+import sensor.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+// Reference receiver for the ReportReadings stream, for gateways to test against. Each stream pulls
+// ackEvery messages at a time with manual flow control, so a slow sink pushes back on the sender through
+// HTTP/2 windows instead of buffering, and acknowledges in batches: after every ackEvery messages, and on a
+// timer for whatever arrived since.
+public class ReadingCollectorServer {
+    private static final Logger logger = Logger.getLogger(ReadingCollectorServer.class.getName());
+    private static final long STOP_TIMEOUT_MILLIS = 5000;
+
+    private final Server server;
+    private final Consumer<SensorReading> sink;
+    private final int ackEvery;
+    private final ScheduledExecutorService acker;
+    private final Set<Stream> streams = ConcurrentHashMap.newKeySet();
+    private final AtomicLong received = new AtomicLong();
+
+    public ReadingCollectorServer(int port, Consumer<SensorReading> sink, int ackEvery, long ackIntervalMillis) {
+        this(NettyServerBuilder.forPort(port), sink, ackEvery, ackIntervalMillis);
+    }
+
+    public ReadingCollectorServer(ServerBuilder<?> serverBuilder, Consumer<SensorReading> sink, int ackEvery,
+                                  long ackIntervalMillis) {
+        this.sink = sink;
+        this.ackEvery = Math.max(1, ackEvery);
+        this.acker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "reading-collector-ack");
+            thread.setDaemon(true);
+            return thread;
+        });
+        acker.scheduleWithFixedDelay(this::flushAcks, ackIntervalMillis, ackIntervalMillis, TimeUnit.MILLISECONDS);
+        this.server = serverBuilder
+                .addService(ServerInterceptors.intercept(new CollectorService(),
+                        GrpcMetrics.serverInterceptor(MetricsRegistry.DEFAULT)))
+                .build();
+    }
+
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    public int getPort() {
+        return server.getPort();
+    }
+
+    public void start() throws IOException {
+        server.start();
+        logger.info("Reading collector started on port " + server.getPort());
+    }
+
+    public void stop() throws InterruptedException {
+        stop(STOP_TIMEOUT_MILLIS);
+    }
+
+    // Gives senders up to timeoutMillis to complete their streams, still acking on the timer meanwhile, then
+    // cancels the streams that are left open; an idle ReportReadings stream never ends on its own.
+    public void stop(long timeoutMillis) throws InterruptedException {
+        try {
+            if (!server.shutdown().awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                server.shutdownNow().awaitTermination(1, TimeUnit.SECONDS);
+            }
+        } finally {
+            acker.shutdownNow();
+        }
+    }
+
+    private void flushAcks() {
+        for (Stream stream : streams) {
+            stream.ack(false);
+        }
+    }
+
+    private class CollectorService extends ReadingCollectorGrpc.ReadingCollectorImplBase {
+        @Override
+        public StreamObserver<SensorReading> reportReadings(StreamObserver<ReportAck> responseObserver) {
+            ServerCallStreamObserver<ReportAck> acks = (ServerCallStreamObserver<ReportAck>) responseObserver;
+            acks.disableAutoRequest();
+            Stream stream = new Stream(acks);
+            streams.add(stream);
+            acks.setOnCancelHandler(() -> streams.remove(stream));
+            acks.request(ackEvery);
+            return stream;
+        }
+    }
+
+    private class Stream implements StreamObserver<SensorReading> {
+        private final ServerCallStreamObserver<ReportAck> acks;
+        private long lastSequence = -1;
+        private long ackedSequence = -1;
+        private long count;
+        private int sinceAck;
+        private boolean closed;
+
+        Stream(ServerCallStreamObserver<ReportAck> acks) {
+            this.acks = acks;
+        }
+
+        @Override
+        public void onNext(SensorReading reading) {
+            sink.accept(reading);
+            received.incrementAndGet();
+            synchronized (this) {
+                lastSequence = Math.max(lastSequence, reading.getSequence());
+                count++;
+                if (++sinceAck >= ackEvery) {
+                    ack(true);
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            streams.remove(this);
+            synchronized (this) {
+                closed = true;
+            }
+            if (Status.fromThrowable(t).getCode() != Status.Code.CANCELLED) {
+                logger.warning("Reading stream failed: " + t.getMessage());
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+            streams.remove(this);
+            synchronized (this) {
+                ack(false);
+                closed = true;
+                acks.onCompleted();
+            }
+        }
+
+        synchronized void ack(boolean requestMore) {
+            if (closed) {
+                return;
+            }
+            if (lastSequence != ackedSequence) {
+                try {
+                    acks.onNext(ReportAck.newBuilder().setAckedThrough(lastSequence).setReceived(count).build());
+                    ackedSequence = lastSequence;
+                } catch (RuntimeException e) {
+                    closed = true;
+                    return;
+                }
+            }
+            if (requestMore) {
+                sinceAck = 0;
+                acks.request(ackEvery);
+            }
+        }
+    }
+}
@@ -1,75 +1,460 @@
 package sensor.server;
 
+import com.google.protobuf.ByteString;
+import io.grpc.Metadata;
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
+import sensor.gossip.GossipMembership;
+import sensor.grpc.AggregatesRequest;
+import sensor.grpc.AggregatesResponse;
+import sensor.grpc.ConditionalReadingRequest;
+import sensor.grpc.ConditionalReadingResponse;
+import sensor.grpc.GossipMessage;
+import sensor.grpc.ProbeRequest;
+import sensor.grpc.ProbeResponse;
 import sensor.grpc.SensorServiceGrpc;
 import sensor.grpc.ReadingResponse;
+import sensor.grpc.ReadingsChunk;
+import sensor.grpc.ReadingsRequest;
+import sensor.grpc.WindowStatsRequest;
+import sensor.grpc.WindowStatsResponse;
 import sensor.ReadingGenerator;
+import sensor.SensorConfig;
+import sensor.dto.Reading;
+import sensor.dto.WindowSummary;
+import sensor.metrics.GrpcMetrics;
+import sensor.metrics.MetricsRegistry;
+import sensor.utils.NettyTransport;
+import sensor.utils.ReadingCodec;
+import sensor.utils.WindowAggregator;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 public class SensorGRPCServer {
     private static final Logger logger = Logger.getLogger(SensorGRPCServer.class.getName());
+    private static final long PERMIT_KEEP_ALIVE_SECONDS = 10;
+    private static final int HISTORY_CHUNK_SIZE = 100;
+    private static final long STOP_TIMEOUT_MILLIS = 5000;
+    public static final Metadata.Key<String> SENSOR_ID_HEADER = Metadata.Key.of("sensor-id", Metadata.ASCII_STRING_MARSHALLER);
+
     private final int port;
     private final Server server;
+    private final Map<Long, SensorServiceImpl> sensors = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    public enum ServerExecutor {
+        DEFAULT,
+        DIRECT,
+        FIXED
+    }
 
     public SensorGRPCServer(int port, ReadingGenerator generator) {
+        this(port, generator, null);
+    }
+
+    public SensorGRPCServer(int port, ReadingGenerator generator, GossipMembership membership) {
+        this(port, generator, membership, new SensorConfig());
+    }
+
+    public SensorGRPCServer(int port, ReadingGenerator generator, GossipMembership membership, SensorConfig config) {
+        this(port, config);
+        addSensor(generator, membership);
+    }
+
+    // Binds without a sensor so the port can come up while the sensor registers; calls are answered
+    // NOT_FOUND until addSensor().
+    public SensorGRPCServer(int port, SensorConfig config) {
         this.port = port;
-        this.server = ServerBuilder.forPort(port)
-                .addService(new SensorServiceImpl(generator))
+        this.server = configure(NettyServerBuilder.forPort(port), config)
+                .addService(routedService())
                 .build();
     }
 
+    public SensorGRPCServer(int port, EventLoopGroup eventLoopGroup) {
+        this(port, eventLoopGroup, new SensorConfig());
+    }
+
+    public SensorGRPCServer(int port, EventLoopGroup eventLoopGroup, SensorConfig config) {
+        this.port = port;
+        this.server = configure(NettyServerBuilder.forPort(port), config)
+                .bossEventLoopGroup(eventLoopGroup)
+                .workerEventLoopGroup(eventLoopGroup)
+                .channelType(NettyTransport.serverChannelType(eventLoopGroup))
+                .addService(routedService())
+                .build();
+    }
+
+    public SensorGRPCServer(ServerBuilder<?> serverBuilder, ReadingGenerator generator) {
+        this.port = -1;
+        addSensor(generator);
+        this.server = serverBuilder
+                .addService(routedService())
+                .build();
+    }
+
+    // DIRECT runs handlers on the transport threads, which avoids a thread hand-off per call for the
+    // GetLastReading fan-in path. It is only safe because no handler blocks: reads are served from in-memory
+    // state, and ProbeMember answers from the callback of an asynchronous gossip call.
+    private NettyServerBuilder configure(NettyServerBuilder builder, SensorConfig config) {
+        builder.permitKeepAliveTime(PERMIT_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS)
+                .permitKeepAliveWithoutCalls(true);
+        switch (config.getGrpcServerExecutor()) {
+            case DIRECT:
+                builder.directExecutor();
+                break;
+            case FIXED: {
+                AtomicInteger counter = new AtomicInteger();
+                executor = Executors.newFixedThreadPool(config.getGrpcServerThreads(), r -> {
+                    Thread thread = new Thread(r, "grpc-server-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                builder.executor(executor);
+                break;
+            }
+            default:
+                break;
+        }
+        if (config.getGrpcMaxConcurrentCallsPerConnection() > 0) {
+            builder.maxConcurrentCallsPerConnection(config.getGrpcMaxConcurrentCallsPerConnection());
+        }
+        if (config.getGrpcFlowControlWindowBytes() > 0) {
+            builder.initialFlowControlWindow(config.getGrpcFlowControlWindowBytes());
+        }
+        if (config.getGrpcKeepAliveTimeMillis() > 0) {
+            builder.keepAliveTime(config.getGrpcKeepAliveTimeMillis(), TimeUnit.MILLISECONDS)
+                    .keepAliveTimeout(config.getGrpcKeepAliveTimeoutMillis(), TimeUnit.MILLISECONDS);
+        }
+        return builder;
+    }
+
+    private ServerServiceDefinition routedService() {
+        return ServerInterceptors.intercept(new SensorServiceGrpc.SensorServiceImplBase() {},
+                new SensorRouter(), GrpcMetrics.serverInterceptor(MetricsRegistry.DEFAULT));
+    }
+
+    public void addSensor(ReadingGenerator generator) {
+        addSensor(generator, null);
+    }
+
+    public void addSensor(ReadingGenerator generator, GossipMembership membership) {
+        SensorServiceImpl previous = sensors.put(generator.getSensorId(), new SensorServiceImpl(generator, membership));
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    // Detaches the sensor from its generator and completes its StreamReadings subscribers, so a removed
+    // sensor neither keeps publishing nor leaves neighbors waiting on a stream that will never be fed.
+    public void removeSensor(long sensorId) {
+        SensorServiceImpl removed = sensors.remove(sensorId);
+        if (removed != null) {
+            removed.close();
+        }
+    }
+
+    public int getPort() {
+        return port;
+    }
+
     public void start() throws IOException {
         server.start();
         logger.info("gRPC Server started on port " + port);
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            try {
-                stop();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }));
     }
 
     public void stop() throws InterruptedException {
-        if (server != null) server.shutdown().awaitTermination();
+        stop(STOP_TIMEOUT_MILLIS);
+    }
+
+    // Lets in-flight calls finish for up to timeoutMillis, then cancels the rest, including open
+    // StreamReadings subscriptions that would otherwise never complete.
+    public void stop(long timeoutMillis) throws InterruptedException {
+        if (server != null && !server.shutdown().awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            server.shutdownNow().awaitTermination(1, TimeUnit.SECONDS);
+        }
+        if (executor != null) executor.shutdown();
     }
 
     public void blockUntilShutdown() throws InterruptedException {
         if (server != null) server.awaitTermination();
     }
 
+    private class SensorRouter implements ServerInterceptor {
+        @Override
+        public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                     ServerCallHandler<ReqT, RespT> next) {
+            ServerServiceDefinition target = resolve(headers.get(SENSOR_ID_HEADER));
+            if (target == null) {
+                call.close(Status.NOT_FOUND.withDescription("Unknown sensor " + headers.get(SENSOR_ID_HEADER)), new Metadata());
+                return new ServerCall.Listener<>() {};
+            }
+
+            @SuppressWarnings("unchecked")
+            ServerMethodDefinition<ReqT, RespT> method =
+                    (ServerMethodDefinition<ReqT, RespT>) target.getMethod(call.getMethodDescriptor().getFullMethodName());
+            if (method == null) {
+                return next.startCall(call, headers);
+            }
+            return method.getServerCallHandler().startCall(call, headers);
+        }
+
+        private ServerServiceDefinition resolve(String sensorId) {
+            if (sensorId == null) {
+                if (sensors.size() == 1) {
+                    Iterator<SensorServiceImpl> only = sensors.values().iterator();
+                    return only.hasNext() ? only.next().definition : null;
+                }
+                return null;
+            }
+            try {
+                SensorServiceImpl service = sensors.get(Long.parseLong(sensorId));
+                return service == null ? null : service.definition;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    // The version of a cached reading is its sample timestamp, so it stays meaningful across restarts of
+    // the serving sensor and needs no extra state on the caller beyond the last reading it already holds.
+    // Before the first sample the conditional answer is version -1 with neither a reading nor not_modified,
+    // whatever version the caller knows, so a zeroed reading is never mistaken for a real one.
+    private record CachedReading(long version, ReadingResponse response,
+                                 ConditionalReadingResponse modified, ConditionalReadingResponse notModified) {
+        private static final ConditionalReadingResponse NO_READING =
+                ConditionalReadingResponse.newBuilder().setVersion(-1).build();
+        static final CachedReading NONE =
+                new CachedReading(-1, Reading.EMPTY.toResponse(), NO_READING, NO_READING);
+
+        static CachedReading of(Reading reading) {
+            if (reading == null) {
+                return NONE;
+            }
+            ReadingResponse response = reading.toResponse();
+            long version = response.getTimestamp();
+            return new CachedReading(version, response,
+                    ConditionalReadingResponse.newBuilder().setVersion(version).setReading(response).build(),
+                    ConditionalReadingResponse.newBuilder().setVersion(version).setNotModified(true).build());
+        }
+    }
+
     private static class SensorServiceImpl extends SensorServiceGrpc.SensorServiceImplBase {
         private final ReadingGenerator generator;
+        private final GossipMembership membership;
+        private final Set<ServerCallStreamObserver<ReadingResponse>> subscribers = ConcurrentHashMap.newKeySet();
+        private final AtomicReference<CachedReading> latest;
+        private final Consumer<Reading> listener = this::publish;
+        private final ServerServiceDefinition definition;
+        private volatile boolean closed;
 
-        public SensorServiceImpl(ReadingGenerator generator) {
+        public SensorServiceImpl(ReadingGenerator generator, GossipMembership membership) {
             this.generator = generator;
+            this.membership = membership;
+            this.latest = new AtomicReference<>(CachedReading.of(generator.getLastReading()));
+            this.definition = bindService();
+            generator.addReadingListener(listener);
+        }
+
+        void close() {
+            closed = true;
+            generator.removeReadingListener(listener);
+            for (ServerCallStreamObserver<ReadingResponse> subscriber : subscribers) {
+                complete(subscriber);
+            }
         }
 
         @Override
         public void getLastReading(com.google.protobuf.Empty request, StreamObserver<ReadingResponse> responseObserver)
         {
-            Map<String, Object> reading = generator.getLastReading();
+            responseObserver.onNext(latest.get().response());
+            responseObserver.onCompleted();
+        }
 
-            if (reading == null) {
-                reading = new HashMap<>();
+        @Override
+        public void getLastReadingIfModified(ConditionalReadingRequest request,
+                                             StreamObserver<ConditionalReadingResponse> responseObserver) {
+            CachedReading cached = latest.get();
+            responseObserver.onNext(cached.version() == request.getKnownVersion() ? cached.notModified() : cached.modified());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void streamReadings(com.google.protobuf.Empty request, StreamObserver<ReadingResponse> responseObserver) {
+            ServerCallStreamObserver<ReadingResponse> subscriber = (ServerCallStreamObserver<ReadingResponse>) responseObserver;
+            subscriber.setOnCancelHandler(() -> subscribers.remove(subscriber));
+            subscribers.add(subscriber);
+            // A subscriber that raced close() past its sweep is completed here instead.
+            if (closed) {
+                complete(subscriber);
+                return;
+            }
+
+            if (generator.getLastReading() != null) {
+                send(subscriber, latest.get().response());
+            }
+        }
+
+        @Override
+        public void getReadings(ReadingsRequest request, StreamObserver<ReadingsChunk> responseObserver) {
+            ReadingCodec codec = null;
+            if (request.getCodec() != 0) {
+                try {
+                    codec = ReadingCodec.Type.forId(request.getCodec());
+                } catch (IllegalArgumentException e) {
+                    responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+                    return;
+                }
+            }
+            long from = request.getFrom();
+            while (true) {
+                List<Reading> chunk = generator.getHistory().range(from, request.getTo(), HISTORY_CHUNK_SIZE);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                ReadingsChunk.Builder builder = ReadingsChunk.newBuilder();
+                if (codec != null) {
+                    builder.setCodec(codec.id()).setBlock(ByteString.copyFrom(codec.encode(chunk)));
+                } else {
+                    for (Reading reading : chunk) {
+                        builder.addReadings(reading.toResponse());
+                    }
+                }
+                responseObserver.onNext(builder.build());
+                if (chunk.size() < HISTORY_CHUNK_SIZE) {
+                    break;
+                }
+                from = chunk.get(chunk.size() - 1).timestamp() + 1;
+            }
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void getWindowStats(WindowStatsRequest request, StreamObserver<WindowStatsResponse> responseObserver) {
+            if (request.getWindowSeconds() <= 0) {
+                responseObserver.onError(Status.INVALID_ARGUMENT
+                        .withDescription("window_seconds must be positive").asRuntimeException());
+                return;
             }
+            long windowMillis = TimeUnit.SECONDS.toMillis(request.getWindowSeconds());
+            responseObserver.onNext(generator.getHistory().stats(windowMillis).toResponse());
+            responseObserver.onCompleted();
+        }
 
-            ReadingResponse response = ReadingResponse.newBuilder()
-                    .setTemperature((Double) reading.getOrDefault("Temperature", 0.0))
-                    .setPressure((Double) reading.getOrDefault("Pressure", 0.0))
-                    .setHumidity((Double) reading.getOrDefault("Humidity", 0.0))
-                    .setCo((Double) reading.getOrDefault("CO", 0.0))
-                    .setSo2((Double) reading.getOrDefault("SO2", 0.0))
-                    .build();
+        @Override
+        public void getAggregates(AggregatesRequest request, StreamObserver<AggregatesResponse> responseObserver) {
+            if (request.getWindows() < 0) {
+                responseObserver.onError(Status.INVALID_ARGUMENT
+                        .withDescription("windows must not be negative").asRuntimeException());
+                return;
+            }
+            WindowAggregator aggregator = generator.getAggregator();
+            AggregatesResponse.Builder builder = AggregatesResponse.newBuilder()
+                    .setWindowMillis(aggregator.getWindowMillis());
+            for (double level : aggregator.getQuantiles()) {
+                builder.addQuantileLevels(level);
+            }
+            if (request.getMerge()) {
+                builder.addWindows(aggregator.merged(request.getWindows(), request.getIncludeCurrent()).toResponse());
+            } else {
+                for (WindowSummary window : aggregator.windows(request.getWindows(), request.getIncludeCurrent())) {
+                    builder.addWindows(window.toResponse());
+                }
+            }
+            responseObserver.onNext(builder.build());
+            responseObserver.onCompleted();
+        }
 
-            responseObserver.onNext(response);
+        @Override
+        public void gossip(GossipMessage request, StreamObserver<GossipMessage> responseObserver) {
+            if (membership == null) {
+                responseObserver.onError(Status.UNIMPLEMENTED
+                        .withDescription("Gossip is disabled on this sensor").asRuntimeException());
+                return;
+            }
+            responseObserver.onNext(membership.onGossip(request));
             responseObserver.onCompleted();
         }
+
+        @Override
+        public void probeMember(ProbeRequest request, StreamObserver<ProbeResponse> responseObserver) {
+            if (membership == null) {
+                responseObserver.onError(Status.UNIMPLEMENTED
+                        .withDescription("Gossip is disabled on this sensor").asRuntimeException());
+                return;
+            }
+            membership.onProbe(request.getTargetId()).whenComplete((ack, error) -> {
+                responseObserver.onNext(ProbeResponse.newBuilder().setAck(Boolean.TRUE.equals(ack)).build());
+                responseObserver.onCompleted();
+            });
+        }
+
+        private void publish(Reading reading) {
+            CachedReading cached = CachedReading.of(reading);
+            latest.set(cached);
+            if (subscribers.isEmpty()) {
+                return;
+            }
+            ReadingResponse response = cached.response();
+            for (ServerCallStreamObserver<ReadingResponse> subscriber : subscribers) {
+                send(subscriber, response);
+            }
+        }
+
+        private void send(ServerCallStreamObserver<ReadingResponse> subscriber, ReadingResponse response) {
+            synchronized (subscriber) {
+                if (subscriber.isCancelled()) {
+                    subscribers.remove(subscriber);
+                    return;
+                }
+                if (!subscriber.isReady()) {
+                    return;
+                }
+                try {
+                    subscriber.onNext(response);
+                } catch (RuntimeException e) {
+                    subscribers.remove(subscriber);
+                    logger.warning("Dropping reading subscriber: " + e.getMessage());
+                }
+            }
+        }
+
+        private void complete(ServerCallStreamObserver<ReadingResponse> subscriber) {
+            if (!subscribers.remove(subscriber)) {
+                return;
+            }
+            synchronized (subscriber) {
+                if (subscriber.isCancelled()) {
+                    return;
+                }
+                try {
+                    subscriber.onCompleted();
+                } catch (RuntimeException e) {
+                    logger.warning("Failed to complete reading subscriber: " + e.getMessage());
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,214 @@
+package sensor.utils;
+
+import sensor.dto.Reading;
+
+public class CalibrationEngine {
+
+    public enum Strategy {
+        NONE,
+        MEAN,
+        IDW,
+        MEDIAN,
+        TRIMMED_MEAN
+    }
+
+    public static final int CHANNELS = 5;
+    private static final double MIN_DISTANCE_KM = 0.001;
+
+    private final Strategy[] strategies;
+    private final double ownWeight;
+    private final double idwPower;
+    private final double trimFraction;
+    private final double outlierThreshold;
+
+    private final double[] own = new double[CHANNELS];
+    private final double[] out = new double[CHANNELS];
+    private double[] neighborValues;
+    private double[] neighborDistances;
+    private double[] values;
+    private double[] weights;
+    private double[] sorted;
+
+    public CalibrationEngine(Strategy[] strategies, double ownWeight, double idwPower, double trimFraction,
+                             double outlierThreshold, int maxNeighbors) {
+        if (strategies.length != CHANNELS) {
+            throw new IllegalArgumentException("Expected " + CHANNELS + " channel strategies");
+        }
+        this.strategies = strategies.clone();
+        this.ownWeight = ownWeight;
+        this.idwPower = idwPower;
+        this.trimFraction = trimFraction;
+        this.outlierThreshold = outlierThreshold;
+        ensureCapacity(Math.max(1, maxNeighbors));
+    }
+
+    public Reading calibrate(Reading reading, Reading[] neighbors, double[] distancesKm) {
+        ensureCapacity(neighbors.length);
+        int count = 0;
+        for (int i = 0; i < neighbors.length; i++) {
+            Reading neighbor = neighbors[i];
+            if (neighbor == null) {
+                continue;
+            }
+            int base = count * CHANNELS;
+            neighborValues[base] = neighbor.temperature();
+            neighborValues[base + 1] = neighbor.pressure();
+            neighborValues[base + 2] = neighbor.humidity();
+            neighborValues[base + 3] = neighbor.co();
+            neighborValues[base + 4] = neighbor.so2();
+            neighborDistances[count] = distancesKm != null && i < distancesKm.length ? distancesKm[i] : Double.NaN;
+            count++;
+        }
+        if (count == 0) {
+            return reading;
+        }
+        own[0] = reading.temperature();
+        own[1] = reading.pressure();
+        own[2] = reading.humidity();
+        own[3] = reading.co();
+        own[4] = reading.so2();
+
+        calibrate(own, neighborValues, neighborDistances, count, out);
+        return new Reading(reading.timestamp(), out[0], out[1], out[2], out[3], out[4]);
+    }
+
+    public void calibrate(double[] own, double[] neighbors, double[] distancesKm, int count, double[] out) {
+        ensureCapacity(count);
+        for (int c = 0; c < CHANNELS; c++) {
+            Strategy strategy = strategies[c];
+            if (strategy == Strategy.NONE || count == 0) {
+                out[c] = own[c];
+                continue;
+            }
+
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                double value = neighbors[i * CHANNELS + c];
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                values[n] = value;
+                weights[n] = weight(distancesKm[i]);
+                n++;
+            }
+            if (outlierThreshold > 0 && n >= 3) {
+                n = rejectOutliers(n);
+            }
+            if (n == 0) {
+                out[c] = own[c];
+                continue;
+            }
+
+            double neighborValue;
+            switch (strategy) {
+                case IDW:
+                    neighborValue = weightedMean(n);
+                    break;
+                case MEDIAN:
+                    neighborValue = median(n);
+                    break;
+                case TRIMMED_MEAN:
+                    neighborValue = trimmedMean(n);
+                    break;
+                default:
+                    neighborValue = mean(n);
+                    break;
+            }
+            out[c] = ownWeight * own[c] + (1.0 - ownWeight) * neighborValue;
+        }
+    }
+
+    private double weight(double distanceKm) {
+        if (Double.isNaN(distanceKm)) {
+            return 1.0;
+        }
+        return 1.0 / Math.pow(Math.max(distanceKm, MIN_DISTANCE_KM), idwPower);
+    }
+
+    private int rejectOutliers(int n) {
+        double median = median(n);
+        for (int i = 0; i < n; i++) {
+            sorted[i] = Math.abs(values[i] - median);
+        }
+        sort(sorted, n);
+        double mad = middle(sorted, n);
+        if (mad == 0.0) {
+            return n;
+        }
+        double limit = outlierThreshold * 1.4826 * mad;
+        int kept = 0;
+        for (int i = 0; i < n; i++) {
+            if (Math.abs(values[i] - median) <= limit) {
+                values[kept] = values[i];
+                weights[kept] = weights[i];
+                kept++;
+            }
+        }
+        return kept;
+    }
+
+    private double mean(int n) {
+        double sum = 0.0;
+        for (int i = 0; i < n; i++) {
+            sum += values[i];
+        }
+        return sum / n;
+    }
+
+    private double weightedMean(int n) {
+        double sum = 0.0;
+        double totalWeight = 0.0;
+        for (int i = 0; i < n; i++) {
+            sum += weights[i] * values[i];
+            totalWeight += weights[i];
+        }
+        return sum / totalWeight;
+    }
+
+    private double median(int n) {
+        System.arraycopy(values, 0, sorted, 0, n);
+        sort(sorted, n);
+        return middle(sorted, n);
+    }
+
+    private double trimmedMean(int n) {
+        System.arraycopy(values, 0, sorted, 0, n);
+        sort(sorted, n);
+        int trim = (int) Math.floor(n * trimFraction);
+        if (n - 2 * trim <= 0) {
+            return middle(sorted, n);
+        }
+        double sum = 0.0;
+        for (int i = trim; i < n - trim; i++) {
+            sum += sorted[i];
+        }
+        return sum / (n - 2 * trim);
+    }
+
+    private static double middle(double[] sorted, int n) {
+        return (n & 1) == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2.0;
+    }
+
+    private static void sort(double[] array, int n) {
+        for (int i = 1; i < n; i++) {
+            double key = array[i];
+            int j = i - 1;
+            while (j >= 0 && array[j] > key) {
+                array[j + 1] = array[j];
+                j--;
+            }
+            array[j + 1] = key;
+        }
+    }
+
+    private void ensureCapacity(int neighbors) {
+        if (values != null && values.length >= neighbors) {
+            return;
+        }
+        neighborValues = new double[neighbors * CHANNELS];
+        neighborDistances = new double[neighbors];
+        values = new double[neighbors];
+        weights = new double[neighbors];
+        sorted = new double[neighbors];
+    }
+}
@@ -1,40 +1,47 @@
 package sensor.utils;
 
-import java.util.HashMap;
-import java.util.Map;
+import sensor.dto.Reading;
 
 public class CalibrationUtil {
-    public static Map<String, Object> calibrate(Map<String, Object> reading, Map<String, Object> neighbor) {
-        Map<String, Object> calibrated = new HashMap<>(reading);
+    public static Reading calibrate(Reading reading, Reading neighbor) {
+        return new Reading(
+                reading.timestamp(),
+                average(reading.temperature(), neighbor.temperature()),
+                average(reading.pressure(), neighbor.pressure()),
+                average(reading.humidity(), neighbor.humidity()),
+                average(reading.co(), neighbor.co()),
+                average(reading.so2(), neighbor.so2())
+        );
+    }
 
-        calibrated.put("Temperature", logAverage(reading, neighbor, "Temperature"));
-        calibrated.put("Humidity", logAverage(reading, neighbor, "Humidity"));
-        calibrated.put("Pressure", logAverage(reading, neighbor, "Pressure"));
-        if (reading.containsKey("CO") && neighbor.containsKey("CO")) {
-            calibrated.put("CO", logAverage(reading, neighbor, "CO"));
+    public static Reading calibrate(Reading reading, Reading[] neighbors) {
+        double temperature = 0.0, pressure = 0.0, humidity = 0.0, co = 0.0, so2 = 0.0;
+        int count = 0;
+        for (Reading neighbor : neighbors) {
+            if (neighbor == null) {
+                continue;
+            }
+            temperature += neighbor.temperature();
+            pressure += neighbor.pressure();
+            humidity += neighbor.humidity();
+            co += neighbor.co();
+            so2 += neighbor.so2();
+            count++;
         }
-        if (reading.containsKey("SO2") && neighbor.containsKey("SO2")) {
-            calibrated.put("SO2", logAverage(reading, neighbor, "SO2"));
+        if (count == 0) {
+            return reading;
         }
-
-        return calibrated;
+        return new Reading(
+                reading.timestamp(),
+                average(reading.temperature(), temperature / count),
+                average(reading.pressure(), pressure / count),
+                average(reading.humidity(), humidity / count),
+                average(reading.co(), co / count),
+                average(reading.so2(), so2 / count)
+        );
     }
 
-    private static double logAverage(Map<String, Object> reading, Map<String, Object> neighbor, String key) {
-        Object val1Obj = reading.get(key);
-        Object val2Obj = neighbor.get(key);
-
-        double val1 = val1Obj instanceof Number ? ((Number) val1Obj).doubleValue()
-                : val1Obj instanceof String ? Double.parseDouble((String) val1Obj) : 0.0;
-        double val2 = val2Obj instanceof Number ? ((Number) val2Obj).doubleValue()
-                : val2Obj instanceof String ? Double.parseDouble((String) val2Obj) : val1;
-
-        double avg = (val1 + val2) / 2.0;
-
-        System.out.println("Calibrating " + key + ": own=" + val1 + ", neighbor=" + val2 + " -> avg=" + avg);
-
-        return avg;
+    private static double average(double own, double neighbor) {
+        return (own + neighbor) / 2.0;
     }
-
-
 }
@@ -0,0 +1,103 @@
+package sensor.utils;
+
+import sensor.dto.Reading;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+public class ColumnarReadingStore implements ReadingSource {
+
+    private static final int MAGIC = 0x53524353;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int CHANNELS = CsvReader.CHANNELS.length;
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private final int rowCount;
+    private final DoubleBuffer columns;
+
+    private ColumnarReadingStore(MappedByteBuffer buffer) throws IOException {
+        buffer.order(ORDER);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(12) != CHANNELS) {
+            throw new IOException("Not a columnar reading store");
+        }
+        this.rowCount = buffer.getInt(8);
+        this.columns = buffer.position(HEADER_BYTES).slice().order(ORDER).asDoubleBuffer();
+    }
+
+    public static ColumnarReadingStore open(String csvPath) throws Exception {
+        Path csv = Paths.get(csvPath);
+        Path store = Paths.get(csvPath + ".col");
+        if (!Files.exists(store) || Files.getLastModifiedTime(store).compareTo(Files.getLastModifiedTime(csv)) < 0) {
+            convert(csvPath, store);
+        }
+        return map(store);
+    }
+
+    public static ColumnarReadingStore map(Path store) throws IOException {
+        try (FileChannel channel = FileChannel.open(store, StandardOpenOption.READ)) {
+            return new ColumnarReadingStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Two streaming passes over the CSV, one to count rows and one to fill the mapped columns, so converting
+    // never holds the parsed file on the heap.
+    public static void convert(String csvPath, Path store) throws Exception {
+        Path tmp = Files.createTempFile(store.toAbsolutePath().getParent(), store.getFileName().toString(), ".tmp");
+        try (CsvStreamReader reader = CsvStreamReader.open(Paths.get(csvPath));
+             FileChannel channel = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            double[] values = new double[CHANNELS];
+            int rowCount = 0;
+            while (reader.next(values)) {
+                rowCount++;
+            }
+            reader.rewind();
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_BYTES + (long) rowCount * CHANNELS * Double.BYTES);
+            buffer.order(ORDER);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(rowCount).putInt(CHANNELS);
+            for (int row = 0; row < rowCount && reader.next(values); row++) {
+                for (int c = 0; c < CHANNELS; c++) {
+                    buffer.putDouble(HEADER_BYTES + (c * rowCount + row) * Double.BYTES, values[c]);
+                }
+            }
+            buffer.force();
+        }
+        Files.move(tmp, store, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public int size() {
+        return rowCount;
+    }
+
+    public double get(int channel, int row) {
+        return columns.get(channel * rowCount + row);
+    }
+
+    @Override
+    public Reading get(int row) {
+        return get(row, 0L);
+    }
+
+    @Override
+    public Reading get(int row, long timestamp) {
+        return new Reading(
+                timestamp,
+                columns.get(row),
+                columns.get(rowCount + row),
+                columns.get(2 * rowCount + row),
+                columns.get(3 * rowCount + row),
+                columns.get(4 * rowCount + row)
+        );
+    }
+}
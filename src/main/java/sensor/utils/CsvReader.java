@@ -1,37 +1,56 @@
 package sensor.utils;
 
+import sensor.dto.Reading;
+
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class CsvReader {
 
-    public static List<Map<String, Object>> readCsv(String filePath) throws Exception {
-        List<Map<String, Object>> result = new ArrayList<>();
+    public static final String[] CHANNELS = {"Temperature", "Pressure", "Humidity", "CO", "SO2"};
+
+    public static List<Reading> readCsv(String filePath) throws Exception {
+        List<Reading> result = new ArrayList<>();
 
         try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
             String headerLine = br.readLine();
-            String[] headers = headerLine.split(",");
+            int[] columns = columnIndexes(headerLine.split(","));
 
             String line;
+            double[] values = new double[CHANNELS.length];
             while ((line = br.readLine()) != null) {
-                String[] values = line.split(",");
-                Map<String, Object> row = new HashMap<>();
-                for (int i = 0; i < headers.length; i++) {
-                    String value = i < values.length ? values[i].trim() : "";
-                    if (value.isEmpty()) {
-                        row.put(headers[i], 0.0);
-                    } else {
-                        row.put(headers[i], Double.parseDouble(value));
-                    }
+                String[] fields = line.split(",");
+                for (int c = 0; c < columns.length; c++) {
+                    values[c] = parse(fields, columns[c]);
                 }
-                result.add(row);
+                result.add(new Reading(0L, values[0], values[1], values[2], values[3], values[4]));
             }
         }
 
         return result;
     }
-}
\ No newline at end of file
+
+    public static int[] columnIndexes(String[] headers) {
+        int[] columns = new int[CHANNELS.length];
+        for (int c = 0; c < CHANNELS.length; c++) {
+            columns[c] = -1;
+            for (int i = 0; i < headers.length; i++) {
+                if (headers[i].trim().equals(CHANNELS[c])) {
+                    columns[c] = i;
+                    break;
+                }
+            }
+        }
+        return columns;
+    }
+
+    private static double parse(String[] fields, int column) {
+        if (column < 0 || column >= fields.length) {
+            return 0.0;
+        }
+        String value = fields[column].trim();
+        return value.isEmpty() ? 0.0 : Double.parseDouble(value);
+    }
+}
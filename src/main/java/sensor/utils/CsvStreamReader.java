@@ -0,0 +1,237 @@
+package sensor.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class CsvStreamReader implements AutoCloseable {
+
+    private static final int CHUNK_BYTES = 64 * 1024;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_SIGNIFICANT_DIGITS = 18;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final FileChannel channel;
+    private final int[] channelOfField;
+    private final long dataOffset;
+    private ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BYTES);
+    private int position;
+    private boolean endOfFile;
+
+    private CsvStreamReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        int lineEnd = nextLineEnd();
+        if (lineEnd < 0) {
+            throw new IOException("CSV file has no header");
+        }
+        byte[] bytes = buffer.array();
+        String header = new String(bytes, 0, trimLineEnd(bytes, 0, lineEnd), StandardCharsets.UTF_8);
+        int[] columns = CsvReader.columnIndexes(header.split(","));
+        int maxColumn = -1;
+        for (int column : columns) {
+            maxColumn = Math.max(maxColumn, column);
+        }
+        this.channelOfField = new int[maxColumn + 1];
+        Arrays.fill(channelOfField, -1);
+        for (int c = 0; c < columns.length; c++) {
+            if (columns[c] >= 0) {
+                channelOfField[columns[c]] = c;
+            }
+        }
+        this.dataOffset = lineEnd + 1;
+        this.position = lineEnd + 1;
+    }
+
+    public static CsvStreamReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new CsvStreamReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Fills values with the next row's channels in CsvReader.CHANNELS order, 0.0 for missing or empty fields.
+    // Returns false at end of file. Blank lines are skipped.
+    public boolean next(double[] values) throws IOException {
+        while (true) {
+            int lineEnd = nextLineEnd();
+            if (lineEnd < 0) {
+                return false;
+            }
+            byte[] bytes = buffer.array();
+            int start = position;
+            int end = trimLineEnd(bytes, start, lineEnd);
+            position = lineEnd + 1;
+            if (end == start) {
+                continue;
+            }
+            Arrays.fill(values, 0.0);
+            int field = 0;
+            int fieldStart = start;
+            for (int i = start; i <= end && field < channelOfField.length; i++) {
+                if (i == end || bytes[i] == ',') {
+                    int c = channelOfField[field];
+                    if (c >= 0) {
+                        values[c] = parseField(bytes, fieldStart, i);
+                    }
+                    field++;
+                    fieldStart = i + 1;
+                }
+            }
+            return true;
+        }
+    }
+
+    public void rewind() throws IOException {
+        channel.position(dataOffset);
+        buffer.clear();
+        position = 0;
+        endOfFile = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static double parseField(byte[] bytes, int from, int to) {
+        while (from < to && bytes[from] == ' ') from++;
+        while (to > from && bytes[to - 1] == ' ') to--;
+        return from == to ? 0.0 : parseDouble(bytes, from, to);
+    }
+
+    // Decimal digits with an optional sign, fraction and exponent are parsed without allocating. When the
+    // significand fits in 53 bits and the power of ten is exact as a double, a single multiply or divide is
+    // correctly rounded; anything else (more digits, larger exponents, NaN, hex) goes through Double.parseDouble.
+    public static double parseDouble(byte[] bytes, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        long significand = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean seenDigit = false;
+        boolean exact = true;
+        while (i < to && bytes[i] >= '0' && bytes[i] <= '9') {
+            int d = bytes[i++] - '0';
+            seenDigit = true;
+            if (digits < MAX_SIGNIFICANT_DIGITS) {
+                if (significand != 0 || d != 0) {
+                    significand = significand * 10 + d;
+                    digits++;
+                }
+            } else {
+                exponent++;
+                exact &= d == 0;
+            }
+        }
+        if (i < to && bytes[i] == '.') {
+            i++;
+            while (i < to && bytes[i] >= '0' && bytes[i] <= '9') {
+                int d = bytes[i++] - '0';
+                seenDigit = true;
+                if (digits < MAX_SIGNIFICANT_DIGITS) {
+                    if (significand != 0 || d != 0) {
+                        digits++;
+                    }
+                    significand = significand * 10 + d;
+                    exponent--;
+                } else {
+                    exact &= d == 0;
+                }
+            }
+        }
+        if (seenDigit && i < to && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            int j = i + 1;
+            boolean negativeExponent = false;
+            if (j < to && (bytes[j] == '-' || bytes[j] == '+')) {
+                negativeExponent = bytes[j] == '-';
+                j++;
+            }
+            int explicit = 0;
+            boolean exponentDigit = false;
+            while (j < to && bytes[j] >= '0' && bytes[j] <= '9') {
+                explicit = Math.min(explicit * 10 + (bytes[j++] - '0'), 10_000);
+                exponentDigit = true;
+            }
+            if (exponentDigit) {
+                exponent += negativeExponent ? -explicit : explicit;
+                i = j;
+            }
+        }
+        if (!seenDigit || i != to || !exact || significand > MAX_EXACT_MANTISSA
+                || exponent < -22 || exponent > 22) {
+            if (seenDigit && i == to && significand == 0) {
+                return negative ? -0.0 : 0.0;
+            }
+            return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+        }
+        double value = exponent < 0
+                ? significand / POWERS_OF_TEN[-exponent]
+                : significand * POWERS_OF_TEN[exponent];
+        return negative ? -value : value;
+    }
+
+    private static int trimLineEnd(byte[] bytes, int start, int lineEnd) {
+        return lineEnd > start && bytes[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+    }
+
+    // Index of the '\n' ending the line at position (or the end of data for a final unterminated line),
+    // reading more of the file and compacting or growing the buffer as needed; -1 once nothing is left.
+    private int nextLineEnd() throws IOException {
+        int scanFrom = position;
+        while (true) {
+            byte[] bytes = buffer.array();
+            int limit = buffer.position();
+            for (int i = scanFrom; i < limit; i++) {
+                if (bytes[i] == '\n') {
+                    return i;
+                }
+            }
+            if (endOfFile) {
+                if (position < limit) {
+                    if (limit == bytes.length) {
+                        grow();
+                    }
+                    buffer.array()[limit] = '\n';
+                    buffer.position(limit + 1);
+                    return limit;
+                }
+                return -1;
+            }
+            scanFrom = limit - position;
+            compact();
+            if (!buffer.hasRemaining()) {
+                grow();
+            }
+            if (channel.read(buffer) < 0) {
+                endOfFile = true;
+            }
+        }
+    }
+
+    private void compact() {
+        buffer.flip().position(position);
+        buffer.compact();
+        position = 0;
+    }
+
+    private void grow() {
+        ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+        buffer.flip();
+        larger.put(buffer);
+        buffer = larger;
+    }
+}
@@ -0,0 +1,231 @@
+package sensor.utils;
+
+import sensor.dto.Reading;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Gorilla-style block (Pelkonen et al., VLDB 2015): timestamps as delta-of-delta in variable-width buckets, so
+// a steady cadence costs one bit per reading, and each channel as the XOR with its previous value, storing only
+// the meaningful bits and reusing the previous leading/trailing zero window when the new value fits in it.
+// The first reading is written verbatim; the block is lossless.
+public class GorillaReadingCodec implements ReadingCodec {
+
+    public static final int ID = 2;
+    private static final int CHANNELS = 5;
+
+    @Override
+    public int id() {
+        return ID;
+    }
+
+    @Override
+    public byte[] encode(List<Reading> readings) {
+        BitWriter out = new BitWriter(16 + readings.size() * 8);
+        out.write(readings.size(), 32);
+        if (readings.isEmpty()) {
+            return out.toByteArray();
+        }
+        Reading first = readings.get(0);
+        long[] previous = bits(first);
+        int[] leading = new int[CHANNELS];
+        int[] trailing = new int[CHANNELS];
+        Arrays.fill(leading, -1);
+        out.write(first.timestamp(), 64);
+        for (int c = 0; c < CHANNELS; c++) {
+            out.write(previous[c], 64);
+        }
+
+        long previousTimestamp = first.timestamp();
+        long previousDelta = 0;
+        long[] current = new long[CHANNELS];
+        for (int i = 1; i < readings.size(); i++) {
+            Reading reading = readings.get(i);
+            long delta = reading.timestamp() - previousTimestamp;
+            writeDeltaOfDelta(out, delta - previousDelta);
+            previousTimestamp = reading.timestamp();
+            previousDelta = delta;
+
+            bits(reading, current);
+            for (int c = 0; c < CHANNELS; c++) {
+                long xor = current[c] ^ previous[c];
+                if (xor == 0) {
+                    out.write(0, 1);
+                    continue;
+                }
+                int lz = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                int tz = Long.numberOfTrailingZeros(xor);
+                if (leading[c] >= 0 && lz >= leading[c] && tz >= trailing[c]) {
+                    out.write(0b10, 2);
+                    out.write(xor >>> trailing[c], 64 - leading[c] - trailing[c]);
+                } else {
+                    int meaningful = 64 - lz - tz;
+                    out.write(0b11, 2);
+                    out.write(lz, 5);
+                    out.write(meaningful - 1, 6);
+                    out.write(xor >>> tz, meaningful);
+                    leading[c] = lz;
+                    trailing[c] = tz;
+                }
+                previous[c] = current[c];
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public List<Reading> decode(byte[] block, int offset, int length) {
+        BitReader in = new BitReader(block, offset, length);
+        int count = (int) in.read(32);
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid gorilla block count " + count);
+        }
+        List<Reading> readings = new ArrayList<>(Math.min(count, length * 8));
+        if (count == 0) {
+            return readings;
+        }
+        long timestamp = in.read(64);
+        long[] values = new long[CHANNELS];
+        for (int c = 0; c < CHANNELS; c++) {
+            values[c] = in.read(64);
+        }
+        readings.add(toReading(timestamp, values));
+
+        int[] leading = new int[CHANNELS];
+        int[] trailing = new int[CHANNELS];
+        long delta = 0;
+        for (int i = 1; i < count; i++) {
+            delta += readDeltaOfDelta(in);
+            timestamp += delta;
+            for (int c = 0; c < CHANNELS; c++) {
+                if (in.read(1) == 0) {
+                    continue;
+                }
+                if (in.read(1) == 1) {
+                    leading[c] = (int) in.read(5);
+                    int meaningful = (int) in.read(6) + 1;
+                    trailing[c] = 64 - leading[c] - meaningful;
+                }
+                values[c] ^= in.read(64 - leading[c] - trailing[c]) << trailing[c];
+            }
+            readings.add(toReading(timestamp, values));
+        }
+        return readings;
+    }
+
+    private static void writeDeltaOfDelta(BitWriter out, long dod) {
+        if (dod == 0) {
+            out.write(0, 1);
+        } else if (dod >= -64 && dod < 64) {
+            out.write(0b10, 2);
+            out.write(dod, 7);
+        } else if (dod >= -256 && dod < 256) {
+            out.write(0b110, 3);
+            out.write(dod, 9);
+        } else if (dod >= -2048 && dod < 2048) {
+            out.write(0b1110, 4);
+            out.write(dod, 12);
+        } else {
+            out.write(0b1111, 4);
+            out.write(dod, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader in) {
+        if (in.read(1) == 0) {
+            return 0;
+        }
+        if (in.read(1) == 0) {
+            return signExtend(in.read(7), 7);
+        }
+        if (in.read(1) == 0) {
+            return signExtend(in.read(9), 9);
+        }
+        if (in.read(1) == 0) {
+            return signExtend(in.read(12), 12);
+        }
+        return in.read(64);
+    }
+
+    private static long signExtend(long value, int bits) {
+        return (value << (64 - bits)) >> (64 - bits);
+    }
+
+    private static long[] bits(Reading reading) {
+        long[] bits = new long[CHANNELS];
+        bits(reading, bits);
+        return bits;
+    }
+
+    private static void bits(Reading reading, long[] bits) {
+        bits[0] = Double.doubleToRawLongBits(reading.temperature());
+        bits[1] = Double.doubleToRawLongBits(reading.pressure());
+        bits[2] = Double.doubleToRawLongBits(reading.humidity());
+        bits[3] = Double.doubleToRawLongBits(reading.co());
+        bits[4] = Double.doubleToRawLongBits(reading.so2());
+    }
+
+    private static Reading toReading(long timestamp, long[] bits) {
+        return new Reading(timestamp, Double.longBitsToDouble(bits[0]), Double.longBitsToDouble(bits[1]),
+                Double.longBitsToDouble(bits[2]), Double.longBitsToDouble(bits[3]), Double.longBitsToDouble(bits[4]));
+    }
+
+    private static class BitWriter {
+        private byte[] bytes;
+        private long position;
+
+        private BitWriter(int initialBytes) {
+            this.bytes = new byte[Math.max(initialBytes, 16)];
+        }
+
+        // Writes the low `bits` bits of value, most significant first.
+        private void write(long value, int bits) {
+            while (bits > 0) {
+                int index = (int) (position >>> 3);
+                if (index == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                }
+                int free = 8 - (int) (position & 7);
+                int n = Math.min(free, bits);
+                int chunk = (int) (value >>> (bits - n)) & ((1 << n) - 1);
+                bytes[index] |= (byte) (chunk << (free - n));
+                position += n;
+                bits -= n;
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(bytes, (int) ((position + 7) >>> 3));
+        }
+    }
+
+    private static class BitReader {
+        private final byte[] bytes;
+        private final int offset;
+        private final long limit;
+        private long position;
+
+        private BitReader(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.limit = (long) length * 8;
+        }
+
+        private long read(int bits) {
+            if (position + bits > limit) {
+                throw new IllegalArgumentException("Truncated gorilla block");
+            }
+            long result = 0;
+            while (bits > 0) {
+                int available = 8 - (int) (position & 7);
+                int n = Math.min(available, bits);
+                int current = bytes[offset + (int) (position >>> 3)] & 0xFF;
+                result = (result << n) | ((current >>> (available - n)) & ((1 << n) - 1));
+                position += n;
+                bits -= n;
+            }
+            return result;
+        }
+    }
+}
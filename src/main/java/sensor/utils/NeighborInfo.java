@@ -1,12 +1,14 @@
 package sensor.utils;
 
-import java.util.Map;
+import sensor.dto.Reading;
 
 public class NeighborInfo {
     private long id;
     private String ip;
     private int port;
-    private Map<String, Object> lastReading;
+    private double latitude = Double.NaN;
+    private double longitude = Double.NaN;
+    private volatile Reading lastReading;
 
 
     public NeighborInfo(long id, String ip, int port) {
@@ -15,6 +17,12 @@ public class NeighborInfo {
         this.port = port;
     }
 
+    public NeighborInfo(long id, String ip, int port, double latitude, double longitude) {
+        this(id, ip, port);
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
     public long getId() {
         return id;
     }
@@ -26,11 +34,26 @@ public class NeighborInfo {
     public int getPort() {
         return port;
     }
-    public Map<String, Object> getLastReading() {
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public double distanceKm(double latitude, double longitude) {
+        if (Double.isNaN(this.latitude) || Double.isNaN(latitude)) {
+            return Double.NaN;
+        }
+        return GeoUtil.haversineKm(latitude, longitude, this.latitude, this.longitude);
+    }
+    public Reading getLastReading() {
         return lastReading;
     }
 
-    public void setLastReading(Map<String, Object> lastReading) {
+    public void setLastReading(Reading lastReading) {
         this.lastReading = lastReading;
     }
 
@@ -38,4 +61,4 @@ public class NeighborInfo {
     public String toString() {
         return "NeighborInfo{id=" + id + ", ip='" + ip + "', port=" + port + "}";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package sensor.utils;
+
+import io.grpc.netty.shaded.io.netty.channel.Channel;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.ServerChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.nio.NioEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioSocketChannel;
+
+import java.util.logging.Logger;
+
+public final class NettyTransport {
+    private static final Logger logger = Logger.getLogger(NettyTransport.class.getName());
+
+    private NettyTransport() {
+    }
+
+    public static boolean isNativeAvailable() {
+        try {
+            return Epoll.isAvailable();
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    // Falls back to NIO when epoll was requested but the native library cannot be loaded on this platform.
+    public static EventLoopGroup newEventLoopGroup(int threads, boolean preferNative) {
+        if (preferNative && isNativeAvailable()) {
+            return new EpollEventLoopGroup(threads);
+        }
+        if (preferNative) {
+            logger.info("Native epoll transport unavailable, using NIO");
+        }
+        return new NioEventLoopGroup(threads);
+    }
+
+    public static Class<? extends ServerChannel> serverChannelType(EventLoopGroup group) {
+        return group instanceof EpollEventLoopGroup ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    }
+
+    public static Class<? extends Channel> channelType(EventLoopGroup group) {
+        return group instanceof EpollEventLoopGroup ? EpollSocketChannel.class : NioSocketChannel.class;
+    }
+}
@@ -0,0 +1,51 @@
+package sensor.utils;
+
+import sensor.dto.Reading;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+// Fixed 48 bytes per reading, little-endian: the timestamp and the five channels as doubles.
+public class RawReadingCodec implements ReadingCodec {
+
+    public static final int ID = 1;
+    private static final int READING_BYTES = 6 * Long.BYTES;
+
+    @Override
+    public int id() {
+        return ID;
+    }
+
+    @Override
+    public byte[] encode(List<Reading> readings) {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + readings.size() * READING_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(readings.size());
+        for (Reading reading : readings) {
+            buffer.putLong(reading.timestamp())
+                    .putDouble(reading.temperature())
+                    .putDouble(reading.pressure())
+                    .putDouble(reading.humidity())
+                    .putDouble(reading.co())
+                    .putDouble(reading.so2());
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public List<Reading> decode(byte[] block, int offset, int length) {
+        ByteBuffer buffer = ByteBuffer.wrap(block, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * READING_BYTES > buffer.remaining()) {
+            throw new IllegalArgumentException("Truncated raw reading block");
+        }
+        List<Reading> readings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            readings.add(new Reading(buffer.getLong(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                    buffer.getDouble(), buffer.getDouble()));
+        }
+        return readings;
+    }
+}
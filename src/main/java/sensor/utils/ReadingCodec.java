@@ -0,0 +1,44 @@
+package sensor.utils;
+
+import sensor.dto.Reading;
+
+import java.util.List;
+
+// Encodes a run of readings as one self-contained block, for the spool, batch uploads and history chunks. A
+// block carries its own reading count; the codec id is stored beside it so readers can pick the decoder.
+public interface ReadingCodec {
+
+    int id();
+
+    byte[] encode(List<Reading> readings);
+
+    List<Reading> decode(byte[] block, int offset, int length);
+
+    default List<Reading> decode(byte[] block) {
+        return decode(block, 0, block.length);
+    }
+
+    enum Type {
+        RAW(new RawReadingCodec()),
+        GORILLA(new GorillaReadingCodec());
+
+        private final ReadingCodec codec;
+
+        Type(ReadingCodec codec) {
+            this.codec = codec;
+        }
+
+        public ReadingCodec codec() {
+            return codec;
+        }
+
+        public static ReadingCodec forId(int id) {
+            for (Type type : values()) {
+                if (type.codec.id() == id) {
+                    return type.codec;
+                }
+            }
+            throw new IllegalArgumentException("Unknown reading codec " + id);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package sensor.utils;
+
+import sensor.dto.Reading;
+import sensor.dto.WindowStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ReadingHistory {
+
+    public static final int CHANNELS = 5;
+
+    private static final WindowStats EMPTY_STATS = new WindowStats(0L, 0L, 0, null, null, null);
+
+    private final int capacity;
+    private final long[] timestamps;
+    private final double[] values;
+    private final SlidingWindow[] windows;
+    private long sequence;
+
+    public ReadingHistory(int capacity, long... windowMillis) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("History capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.timestamps = new long[capacity];
+        this.values = new double[capacity * CHANNELS];
+        this.windows = new SlidingWindow[windowMillis.length];
+        for (int i = 0; i < windowMillis.length; i++) {
+            windows[i] = new SlidingWindow(windowMillis[i]);
+        }
+    }
+
+    public synchronized void add(Reading reading) {
+        long seq = sequence;
+        if (seq >= capacity) {
+            for (SlidingWindow window : windows) {
+                window.evictBefore(seq - capacity + 1);
+            }
+        }
+        int slot = slot(seq);
+        int base = slot * CHANNELS;
+        timestamps[slot] = reading.timestamp();
+        values[base] = reading.temperature();
+        values[base + 1] = reading.pressure();
+        values[base + 2] = reading.humidity();
+        values[base + 3] = reading.co();
+        values[base + 4] = reading.so2();
+        sequence = seq + 1;
+        for (SlidingWindow window : windows) {
+            window.add(seq);
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(sequence, capacity);
+    }
+
+    public synchronized List<Reading> range(long from, long to, int limit) {
+        List<Reading> result = new ArrayList<>();
+        for (long seq = firstAfter(from - 1); seq < sequence && result.size() < limit; seq++) {
+            int slot = slot(seq);
+            if (to > 0 && timestamps[slot] > to) {
+                break;
+            }
+            result.add(readingAt(slot));
+        }
+        return result;
+    }
+
+    public synchronized WindowStats stats(long windowMillis) {
+        for (SlidingWindow window : windows) {
+            if (window.windowMillis == windowMillis) {
+                return window.stats();
+            }
+        }
+        if (sequence == 0) {
+            return EMPTY_STATS;
+        }
+        long start = firstAfter(timestamps[slot(sequence - 1)] - windowMillis);
+        double[] min = new double[CHANNELS];
+        double[] max = new double[CHANNELS];
+        double[] sum = new double[CHANNELS];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        for (long seq = start; seq < sequence; seq++) {
+            int base = slot(seq) * CHANNELS;
+            for (int c = 0; c < CHANNELS; c++) {
+                double value = values[base + c];
+                min[c] = Math.min(min[c], value);
+                max[c] = Math.max(max[c], value);
+                sum[c] += value;
+            }
+        }
+        return toStats(start, min, max, sum);
+    }
+
+    private WindowStats toStats(long start, double[] min, double[] max, double[] sum) {
+        int count = (int) (sequence - start);
+        if (count == 0) {
+            return EMPTY_STATS;
+        }
+        long from = timestamps[slot(start)];
+        long to = timestamps[slot(sequence - 1)];
+        double[] mean = new double[CHANNELS];
+        for (int c = 0; c < CHANNELS; c++) {
+            mean[c] = sum[c] / count;
+        }
+        return new WindowStats(from, to, count, toReading(to, min), toReading(to, max), toReading(to, mean));
+    }
+
+    private long firstAfter(long timestamp) {
+        long low = Math.max(0, sequence - capacity);
+        long high = sequence;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (timestamps[slot(mid)] <= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % capacity);
+    }
+
+    private Reading readingAt(int slot) {
+        int base = slot * CHANNELS;
+        return new Reading(timestamps[slot], values[base], values[base + 1], values[base + 2],
+                values[base + 3], values[base + 4]);
+    }
+
+    private static Reading toReading(long timestamp, double[] channels) {
+        return new Reading(timestamp, channels[0], channels[1], channels[2], channels[3], channels[4]);
+    }
+
+    private class SlidingWindow {
+        private final long windowMillis;
+        private final double[] sums = new double[CHANNELS];
+        private final SequenceDeque[] minima = new SequenceDeque[CHANNELS];
+        private final SequenceDeque[] maxima = new SequenceDeque[CHANNELS];
+        private long start;
+
+        private SlidingWindow(long windowMillis) {
+            this.windowMillis = windowMillis;
+            for (int c = 0; c < CHANNELS; c++) {
+                minima[c] = new SequenceDeque(capacity);
+                maxima[c] = new SequenceDeque(capacity);
+            }
+        }
+
+        private void add(long seq) {
+            int base = slot(seq) * CHANNELS;
+            for (int c = 0; c < CHANNELS; c++) {
+                double value = values[base + c];
+                sums[c] += value;
+                SequenceDeque min = minima[c];
+                while (!min.isEmpty() && valueAt(min.last(), c) >= value) {
+                    min.removeLast();
+                }
+                min.addLast(seq);
+                SequenceDeque max = maxima[c];
+                while (!max.isEmpty() && valueAt(max.last(), c) <= value) {
+                    max.removeLast();
+                }
+                max.addLast(seq);
+            }
+            long cutoff = timestamps[slot(seq)] - windowMillis;
+            while (start < seq && timestamps[slot(start)] <= cutoff) {
+                evictOne();
+            }
+        }
+
+        private void evictBefore(long seq) {
+            while (start < seq) {
+                evictOne();
+            }
+        }
+
+        private void evictOne() {
+            int base = slot(start) * CHANNELS;
+            for (int c = 0; c < CHANNELS; c++) {
+                sums[c] -= values[base + c];
+                if (!minima[c].isEmpty() && minima[c].first() == start) {
+                    minima[c].removeFirst();
+                }
+                if (!maxima[c].isEmpty() && maxima[c].first() == start) {
+                    maxima[c].removeFirst();
+                }
+            }
+            start++;
+        }
+
+        private WindowStats stats() {
+            if (start == sequence) {
+                return EMPTY_STATS;
+            }
+            double[] min = new double[CHANNELS];
+            double[] max = new double[CHANNELS];
+            for (int c = 0; c < CHANNELS; c++) {
+                min[c] = valueAt(minima[c].first(), c);
+                max[c] = valueAt(maxima[c].first(), c);
+            }
+            return toStats(start, min, max, sums);
+        }
+
+        private double valueAt(long seq, int channel) {
+            return values[slot(seq) * CHANNELS + channel];
+        }
+    }
+
+    private static class SequenceDeque {
+        private final long[] elements;
+        private int head;
+        private int size;
+
+        private SequenceDeque(int capacity) {
+            this.elements = new long[capacity];
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private long first() {
+            return elements[head];
+        }
+
+        private long last() {
+            return elements[(head + size - 1) % elements.length];
+        }
+
+        private void addLast(long value) {
+            elements[(head + size) % elements.length] = value;
+            size++;
+        }
+
+        private void removeFirst() {
+            head = (head + 1) % elements.length;
+            size--;
+        }
+
+        private void removeLast() {
+            size--;
+        }
+    }
+}
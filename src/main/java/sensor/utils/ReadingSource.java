@@ -0,0 +1,16 @@
+package sensor.utils;
+
+import sensor.dto.Reading;
+
+public interface ReadingSource {
+
+    int size();
+
+    Reading get(int row);
+
+    // The sampling tick's view of a row. Sources that build a Reading per call override it to stamp the
+    // timestamp while building, so a tick allocates one Reading rather than a row and a stamped copy.
+    default Reading get(int row, long timestamp) {
+        return get(row).withTimestamp(timestamp);
+    }
+}
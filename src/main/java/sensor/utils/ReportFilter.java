@@ -0,0 +1,37 @@
+package sensor.utils;
+
+import sensor.dto.Reading;
+
+public class ReportFilter {
+
+    private final double[] deadbands;
+    private final long heartbeatMillis;
+    private Reading lastReported;
+
+    public ReportFilter(double[] deadbands, long heartbeatMillis) {
+        if (deadbands.length != ReadingHistory.CHANNELS) {
+            throw new IllegalArgumentException("Expected " + ReadingHistory.CHANNELS + " channel dead-bands");
+        }
+        this.deadbands = deadbands.clone();
+        this.heartbeatMillis = heartbeatMillis;
+    }
+
+    public synchronized boolean accept(Reading reading) {
+        Reading last = lastReported;
+        if (last == null
+                || reading.timestamp() - last.timestamp() >= heartbeatMillis
+                || exceeds(last.temperature(), reading.temperature(), 0)
+                || exceeds(last.pressure(), reading.pressure(), 1)
+                || exceeds(last.humidity(), reading.humidity(), 2)
+                || exceeds(last.co(), reading.co(), 3)
+                || exceeds(last.so2(), reading.so2(), 4)) {
+            lastReported = reading;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean exceeds(double reported, double value, int channel) {
+        return Math.abs(value - reported) > deadbands[channel];
+    }
+}
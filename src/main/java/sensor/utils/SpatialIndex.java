@@ -0,0 +1,165 @@
+package sensor.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SpatialIndex {
+
+    private final NeighborInfo[] nodes;
+    private final double[] coords;
+
+    public SpatialIndex(List<NeighborInfo> sensors) {
+        List<NeighborInfo> located = new ArrayList<>(sensors.size());
+        for (NeighborInfo sensor : sensors) {
+            if (!Double.isNaN(sensor.getLatitude()) && !Double.isNaN(sensor.getLongitude())) {
+                located.add(sensor);
+            }
+        }
+        this.nodes = located.toArray(new NeighborInfo[0]);
+        this.coords = new double[nodes.length * 3];
+        for (int i = 0; i < nodes.length; i++) {
+            toUnitVector(nodes[i].getLatitude(), nodes[i].getLongitude(), coords, i * 3);
+        }
+        build(0, nodes.length, 0);
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    public List<NeighborInfo> nearest(double latitude, double longitude, int k, long excludeId) {
+        if (nodes.length == 0 || k <= 0 || Double.isNaN(latitude) || Double.isNaN(longitude)) {
+            return List.of();
+        }
+        double[] target = new double[3];
+        toUnitVector(latitude, longitude, target, 0);
+        Search search = new Search(target, Math.min(k, nodes.length), excludeId);
+        search(0, nodes.length, 0, search);
+
+        List<NeighborInfo> result = new ArrayList<>(search.count);
+        for (int i = 0; i < search.count; i++) {
+            NeighborInfo node = nodes[search.found[i]];
+            result.add(new NeighborInfo(node.getId(), node.getIp(), node.getPort(),
+                    node.getLatitude(), node.getLongitude()));
+        }
+        return result;
+    }
+
+    private void build(int from, int to, int axis) {
+        if (to - from <= 1) {
+            return;
+        }
+        int median = (from + to) >>> 1;
+        select(from, to - 1, median, axis);
+        build(from, median, (axis + 1) % 3);
+        build(median + 1, to, (axis + 1) % 3);
+    }
+
+    private void select(int left, int right, int k, int axis) {
+        while (left < right) {
+            double pivot = coords[((left + right) >>> 1) * 3 + axis];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coords[i * 3 + axis] < pivot) {
+                    i++;
+                }
+                while (coords[j * 3 + axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        NeighborInfo node = nodes[a];
+        nodes[a] = nodes[b];
+        nodes[b] = node;
+        for (int d = 0; d < 3; d++) {
+            double value = coords[a * 3 + d];
+            coords[a * 3 + d] = coords[b * 3 + d];
+            coords[b * 3 + d] = value;
+        }
+    }
+
+    private void search(int from, int to, int axis, Search search) {
+        if (from >= to) {
+            return;
+        }
+        int node = (from + to) >>> 1;
+        if (nodes[node].getId() != search.excludeId) {
+            search.offer(node, squaredDistance(node, search.target));
+        }
+        double delta = search.target[axis] - coords[node * 3 + axis];
+        int next = (axis + 1) % 3;
+        if (delta < 0) {
+            search(from, node, next, search);
+            if (delta * delta < search.bound()) {
+                search(node + 1, to, next, search);
+            }
+        } else {
+            search(node + 1, to, next, search);
+            if (delta * delta < search.bound()) {
+                search(from, node, next, search);
+            }
+        }
+    }
+
+    private double squaredDistance(int node, double[] target) {
+        double dx = coords[node * 3] - target[0];
+        double dy = coords[node * 3 + 1] - target[1];
+        double dz = coords[node * 3 + 2] - target[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static void toUnitVector(double latitude, double longitude, double[] out, int offset) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        out[offset] = Math.cos(lat) * Math.cos(lon);
+        out[offset + 1] = Math.cos(lat) * Math.sin(lon);
+        out[offset + 2] = Math.sin(lat);
+    }
+
+    private static class Search {
+        private final double[] target;
+        private final long excludeId;
+        private final int[] found;
+        private final double[] distances;
+        private int count;
+
+        private Search(double[] target, int k, long excludeId) {
+            this.target = target;
+            this.excludeId = excludeId;
+            this.found = new int[k];
+            this.distances = new double[k];
+        }
+
+        private double bound() {
+            return count < found.length ? Double.POSITIVE_INFINITY : distances[count - 1];
+        }
+
+        private void offer(int node, double distance) {
+            if (distance >= bound()) {
+                return;
+            }
+            int i = count < found.length ? count++ : count - 1;
+            while (i > 0 && distances[i - 1] > distance) {
+                found[i] = found[i - 1];
+                distances[i] = distances[i - 1];
+                i--;
+            }
+            found[i] = node;
+            distances[i] = distance;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package sensor.utils;
+
+import sensor.dto.Reading;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+// Replays a CSV file without loading it: rows are parsed on demand and the file is rewound at the end, so
+// memory use does not depend on the file size. The last windowRows parsed rows are kept in a ring indexed by
+// row number, so sensors of one host sharing this source at different phases read behind the parser without
+// rescanning; only a row older than the window rewinds. The row count is unknown, and size() reports
+// Integer.MAX_VALUE, until the first pass completes.
+public class StreamingReadingSource implements ReadingSource, AutoCloseable {
+
+    public static final int DEFAULT_WINDOW_ROWS = 4096;
+
+    private final CsvStreamReader reader;
+    private final double[] values = new double[CsvReader.CHANNELS.length];
+    private final Reading[] window;
+    private final int[] windowRows;
+    private int rowCount = -1;
+    private int nextRow;
+    private long rewinds;
+
+    private StreamingReadingSource(CsvStreamReader reader, int windowRows) {
+        this.reader = reader;
+        this.window = new Reading[Math.max(1, windowRows)];
+        this.windowRows = new int[window.length];
+        Arrays.fill(this.windowRows, -1);
+    }
+
+    public static StreamingReadingSource open(String csvPath) throws IOException {
+        return open(csvPath, DEFAULT_WINDOW_ROWS);
+    }
+
+    public static StreamingReadingSource open(String csvPath, int windowRows) throws IOException {
+        return new StreamingReadingSource(CsvStreamReader.open(Paths.get(csvPath)), windowRows);
+    }
+
+    @Override
+    public synchronized int size() {
+        return rowCount < 0 ? Integer.MAX_VALUE : rowCount;
+    }
+
+    // Times the reader went back to the start of the file for a row that had left the window.
+    public synchronized long getRewindCount() {
+        return rewinds;
+    }
+
+    @Override
+    public synchronized Reading get(int row) {
+        try {
+            if (rowCount > 0) {
+                row %= rowCount;
+            }
+            int slot = row % window.length;
+            if (windowRows[slot] == row) {
+                return window[slot];
+            }
+            if (row < nextRow) {
+                reader.rewind();
+                nextRow = 0;
+                rewinds++;
+            }
+            while (true) {
+                if (!reader.next(values)) {
+                    if (nextRow == 0) {
+                        throw new IllegalStateException("CSV file has no readings");
+                    }
+                    rowCount = nextRow;
+                    reader.rewind();
+                    nextRow = 0;
+                    row %= rowCount;
+                    slot = row % window.length;
+                    if (windowRows[slot] == row) {
+                        return window[slot];
+                    }
+                    continue;
+                }
+                Reading reading = new Reading(0L, values[0], values[1], values[2], values[3], values[4]);
+                int parsed = nextRow++;
+                window[parsed % window.length] = reading;
+                windowRows[parsed % window.length] = parsed;
+                if (parsed == row) {
+                    return reading;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,178 @@
+package sensor.utils;
+
+import java.util.Arrays;
+
+// Merging t-digest (Dunning) with the arcsine scale function: incoming values are buffered and folded into
+// at most ~compression centroids, small near the tails and large in the middle, so extreme quantiles stay
+// accurate in constant memory. Digests merge by feeding one's centroids into the other.
+public class TDigest {
+
+    private final double compression;
+    private double[] means;
+    private double[] weights;
+    private int centroids;
+    private final double[] bufferMeans;
+    private final double[] bufferWeights;
+    private int buffered;
+    private double[] scratchMeans = new double[0];
+    private double[] scratchWeights = new double[0];
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest(double compression) {
+        this.compression = compression;
+        int capacity = (int) Math.ceil(compression) + 8;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.bufferMeans = new double[capacity];
+        this.bufferWeights = new double[capacity];
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    public void add(double value, double weight) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (buffered == bufferMeans.length) {
+            compress();
+        }
+        bufferMeans[buffered] = value;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        totalWeight += weight;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void add(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.centroids; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public double size() {
+        return totalWeight;
+    }
+
+    public TDigest copy() {
+        TDigest copy = new TDigest(compression);
+        copy.add(this);
+        return copy;
+    }
+
+    public double quantile(double q) {
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        if (centroids == 1 || q <= 0) {
+            return q <= 0 ? min : means[0];
+        }
+        if (q >= 1) {
+            return max;
+        }
+        double index = q * totalWeight;
+        if (index < weights[0] / 2) {
+            return min + (means[0] - min) * index / (weights[0] / 2);
+        }
+        double cumulative = weights[0] / 2;
+        for (int i = 0; i < centroids - 1; i++) {
+            double step = (weights[i] + weights[i + 1]) / 2;
+            if (cumulative + step > index) {
+                double fraction = (index - cumulative) / step;
+                return means[i] + (means[i + 1] - means[i]) * fraction;
+            }
+            cumulative += step;
+        }
+        double last = weights[centroids - 1] / 2;
+        double fraction = Math.min(1, (index - cumulative) / last);
+        return means[centroids - 1] + (max - means[centroids - 1]) * fraction;
+    }
+
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        sortByMean(bufferMeans, bufferWeights, buffered);
+        int count = centroids + buffered;
+        if (scratchMeans.length < count) {
+            scratchMeans = new double[count];
+            scratchWeights = new double[count];
+        }
+        for (int i = 0, a = 0, b = 0; i < count; i++) {
+            if (b >= buffered || (a < centroids && means[a] <= bufferMeans[b])) {
+                scratchMeans[i] = means[a];
+                scratchWeights[i] = weights[a++];
+            } else {
+                scratchMeans[i] = bufferMeans[b];
+                scratchWeights[i] = bufferWeights[b++];
+            }
+        }
+        buffered = 0;
+
+        int merged = 0;
+        double mergedWeight = 0;
+        double limit = totalWeight * quantileOfScale(scale(0) + 1);
+        double mean = scratchMeans[0];
+        double weight = scratchWeights[0];
+        for (int i = 1; i < count; i++) {
+            if (mergedWeight + weight + scratchWeights[i] <= limit) {
+                weight += scratchWeights[i];
+                mean += (scratchMeans[i] - mean) * scratchWeights[i] / weight;
+            } else {
+                ensureCapacity(merged + 1);
+                means[merged] = mean;
+                weights[merged] = weight;
+                merged++;
+                mergedWeight += weight;
+                limit = totalWeight * quantileOfScale(scale(mergedWeight / totalWeight) + 1);
+                mean = scratchMeans[i];
+                weight = scratchWeights[i];
+            }
+        }
+        ensureCapacity(merged + 1);
+        means[merged] = mean;
+        weights[merged] = weight;
+        centroids = merged + 1;
+    }
+
+    private double scale(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * q - 1);
+    }
+
+    private double quantileOfScale(double k) {
+        if (k >= compression / 4) {
+            return 1;
+        }
+        return (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > means.length) {
+            means = Arrays.copyOf(means, size * 2);
+            weights = Arrays.copyOf(weights, size * 2);
+        }
+    }
+
+    private static void sortByMean(double[] means, double[] weights, int count) {
+        for (int i = 1; i < count; i++) {
+            double mean = means[i];
+            double weight = weights[i];
+            int j = i - 1;
+            while (j >= 0 && means[j] > mean) {
+                means[j + 1] = means[j];
+                weights[j + 1] = weights[j];
+                j--;
+            }
+            means[j + 1] = mean;
+            weights[j + 1] = weight;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package sensor.utils;
+
+import sensor.dto.ChannelSummary;
+import sensor.dto.Reading;
+import sensor.dto.WindowSummary;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class WindowAggregator {
+
+    private static final int CHANNELS = CsvReader.CHANNELS.length;
+
+    private final long windowMillis;
+    private final int retain;
+    private final double compression;
+    private final double[] quantiles;
+    private final ArrayDeque<Window> closed = new ArrayDeque<>();
+    private Window current;
+
+    public WindowAggregator(long windowMillis, int retain, double compression, double... quantiles) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("Aggregation window must be positive");
+        }
+        this.windowMillis = windowMillis;
+        this.retain = Math.max(1, retain);
+        this.compression = compression;
+        this.quantiles = quantiles.clone();
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public double[] getQuantiles() {
+        return quantiles.clone();
+    }
+
+    // Adds the reading to its tumbling window, aligned to multiples of windowMillis. Returns the summary of
+    // the previous window when this reading is the first one past its end, otherwise null.
+    public synchronized WindowSummary add(Reading reading) {
+        long from = reading.timestamp() - Math.floorMod(reading.timestamp(), windowMillis);
+        WindowSummary completed = null;
+        if (current != null && current.from != from) {
+            completed = current.summary(quantiles);
+            closed.addLast(current);
+            if (closed.size() > retain) {
+                closed.removeFirst();
+            }
+            current = null;
+        }
+        if (current == null) {
+            current = new Window(from, from + windowMillis, compression);
+        }
+        current.add(reading);
+        return completed;
+    }
+
+    // The last count completed windows, oldest first, followed by the window still filling if requested.
+    public synchronized List<WindowSummary> windows(int count, boolean includeCurrent) {
+        List<WindowSummary> result = new ArrayList<>();
+        for (Window window : recent(count)) {
+            result.add(window.summary(quantiles));
+        }
+        if (includeCurrent && current != null) {
+            result.add(current.summary(quantiles));
+        }
+        return result;
+    }
+
+    // One summary across the same windows, i.e. a sliding window of count * windowMillis that advances one
+    // tumbling window at a time. Built by merging the retained per-window accumulators.
+    public synchronized WindowSummary merged(int count, boolean includeCurrent) {
+        List<Window> windows = recent(count);
+        if (includeCurrent && current != null) {
+            windows.add(current);
+        }
+        if (windows.isEmpty()) {
+            return new Window(0, 0, compression).summary(quantiles);
+        }
+        Window merged = new Window(windows.get(0).from, windows.get(windows.size() - 1).to, compression);
+        for (Window window : windows) {
+            merged.merge(window);
+        }
+        return merged.summary(quantiles);
+    }
+
+    private List<Window> recent(int count) {
+        List<Window> windows = new ArrayList<>();
+        int skip = Math.max(0, closed.size() - Math.max(0, count));
+        Iterator<Window> iterator = closed.iterator();
+        for (int i = 0; iterator.hasNext(); i++) {
+            Window window = iterator.next();
+            if (i >= skip) {
+                windows.add(window);
+            }
+        }
+        return windows;
+    }
+
+    private static final class Window {
+        final long from;
+        final long to;
+        final Accumulator[] channels = new Accumulator[CHANNELS];
+
+        Window(long from, long to, double compression) {
+            this.from = from;
+            this.to = to;
+            for (int c = 0; c < CHANNELS; c++) {
+                channels[c] = new Accumulator(compression);
+            }
+        }
+
+        void add(Reading reading) {
+            channels[0].add(reading.temperature());
+            channels[1].add(reading.pressure());
+            channels[2].add(reading.humidity());
+            channels[3].add(reading.co());
+            channels[4].add(reading.so2());
+        }
+
+        void merge(Window other) {
+            for (int c = 0; c < CHANNELS; c++) {
+                channels[c].merge(other.channels[c]);
+            }
+        }
+
+        WindowSummary summary(double[] quantiles) {
+            List<ChannelSummary> summaries = new ArrayList<>(CHANNELS);
+            for (int c = 0; c < CHANNELS; c++) {
+                summaries.add(channels[c].summary(CsvReader.CHANNELS[c], quantiles));
+            }
+            return new WindowSummary(from, to, quantiles, summaries);
+        }
+    }
+
+    // Welford's running mean and squared deviations, merged across windows with Chan's parallel update, so
+    // the variance stays numerically stable without keeping samples.
+    private static final class Accumulator {
+        final TDigest digest;
+        long count;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double mean;
+        double m2;
+
+        Accumulator(double compression) {
+            this.digest = new TDigest(compression);
+        }
+
+        void add(double value) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            digest.add(value);
+        }
+
+        void merge(Accumulator other) {
+            if (other.count == 0) {
+                return;
+            }
+            long total = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / total;
+            m2 += other.m2 + delta * delta * count * other.count / total;
+            count = total;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            digest.add(other.digest);
+        }
+
+        ChannelSummary summary(String channel, double[] quantiles) {
+            double[] values = new double[quantiles.length];
+            for (int i = 0; i < quantiles.length; i++) {
+                values[i] = digest.quantile(quantiles[i]);
+            }
+            double variance = count > 1 ? m2 / (count - 1) : 0.0;
+            return new ChannelSummary(channel, count, min, max, mean, variance, values);
+        }
+    }
+}
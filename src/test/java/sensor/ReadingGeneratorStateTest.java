@@ -0,0 +1,99 @@
+package sensor;
+
+import org.junit.jupiter.api.Test;
+import sensor.dto.Reading;
+import sensor.utils.ReadingSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Readers racing one sampling writer must only ever see a snapshot whose fields all belong to the same tick,
+// must never see time go backwards, and must see the writer's final tick once it is done.
+class ReadingGeneratorStateTest {
+
+    private static final int TICKS = 200_000;
+    private static final int READERS = 4;
+    private static final int ROWS = 97;
+
+    @Test
+    void readersSeeConsistentAndProgressingSnapshots() throws Exception {
+        ReadingGenerator generator = new ReadingGenerator(null, null, 1L, new TickSource(), null);
+        AtomicReference<String> failure = new AtomicReference<>();
+        CountDownLatch writerDone = new CountDownLatch(1);
+        List<Thread> readers = new ArrayList<>();
+        long[] lastSeen = new long[READERS];
+
+        for (int r = 0; r < READERS; r++) {
+            int reader = r;
+            Thread thread = new Thread(() -> {
+                long previous = 0;
+                while (true) {
+                    boolean finished = writerDone.getCount() == 0;
+                    ReadingGenerator.State state = generator.getState();
+                    Reading reading = state.lastReading();
+                    if (reading != null) {
+                        String torn = check(state.activeSeconds(), reading);
+                        if (torn != null) {
+                            failure.compareAndSet(null, torn);
+                            return;
+                        }
+                    }
+                    if (state.activeSeconds() < previous) {
+                        failure.compareAndSet(null, "tick went back from " + previous + " to " + state.activeSeconds());
+                        return;
+                    }
+                    previous = state.activeSeconds();
+                    if (finished) {
+                        lastSeen[reader] = previous;
+                        return;
+                    }
+                }
+            }, "state-reader-" + r);
+            thread.start();
+            readers.add(thread);
+        }
+
+        for (long tick = 1; tick <= TICKS; tick++) {
+            generator.sample(tick, tick * 1000);
+        }
+        writerDone.countDown();
+        for (Thread thread : readers) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+            assertTrue(!thread.isAlive(), thread.getName() + " did not finish");
+        }
+
+        assertNull(failure.get());
+        for (long seen : lastSeen) {
+            assertEquals(TICKS, seen);
+        }
+    }
+
+    // Every field of a reading is derived from its tick, so a mix of two ticks is detectable.
+    private static String check(long tick, Reading reading) {
+        double row = tick % ROWS;
+        if (reading.timestamp() != tick * 1000 || reading.temperature() != row || reading.pressure() != 1000 + row
+                || reading.humidity() != 2 * row || reading.co() != 3 * row || reading.so2() != -row) {
+            return "torn snapshot at tick " + tick + ": " + reading;
+        }
+        return null;
+    }
+
+    private static class TickSource implements ReadingSource {
+        @Override
+        public int size() {
+            return ROWS;
+        }
+
+        @Override
+        public Reading get(int row) {
+            return new Reading(0L, row, 1000 + row, 2 * row, 3 * row, -row);
+        }
+    }
+}
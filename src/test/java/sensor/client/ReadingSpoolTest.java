@@ -0,0 +1,174 @@
+package sensor.client;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sensor.dto.Reading;
+import sensor.utils.ReadingCodec;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ReadingSpoolTest {
+
+    private static final long SEGMENT_BYTES = 4096;
+    private static final long MAX_BYTES = 1 << 20;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversPendingReadingsAfterReopen() throws IOException {
+        List<Reading> readings = readings(0, 500);
+        try (ReadingSpool spool = open(ReadingCodec.Type.GORILLA)) {
+            for (int i = 0; i < readings.size(); i += 50) {
+                spool.append(readings.subList(i, i + 50));
+            }
+            assertEquals(500, spool.pending());
+        }
+        try (ReadingSpool spool = open(ReadingCodec.Type.GORILLA)) {
+            assertEquals(500, spool.pending());
+            assertEquals(readings, spool.peek(500));
+        }
+    }
+
+    @Test
+    void acknowledgedReadingsStayAcknowledgedAcrossReopen() throws IOException {
+        List<Reading> readings = readings(0, 300);
+        try (ReadingSpool spool = open(ReadingCodec.Type.RAW)) {
+            spool.append(readings.subList(0, 100));
+            spool.append(readings.subList(100, 300));
+            assertEquals(readings.subList(0, 70), spool.peek(70));
+            spool.ack(70);
+        }
+        try (ReadingSpool spool = open(ReadingCodec.Type.GORILLA)) {
+            assertEquals(230, spool.pending());
+            assertEquals(readings.subList(70, 300), spool.peek(1000));
+            spool.ack(230);
+            assertEquals(0, spool.pending());
+        }
+        try (ReadingSpool spool = open(ReadingCodec.Type.GORILLA)) {
+            assertEquals(0, spool.pending());
+            assertEquals(List.of(), spool.peek(10));
+            spool.append(readings(300, 5));
+            assertEquals(readings(300, 5), spool.peek(10));
+        }
+    }
+
+    @Test
+    void tornTailIsTruncatedOnRecovery() throws IOException {
+        List<Reading> readings = readings(0, 40);
+        try (ReadingSpool spool = open(ReadingCodec.Type.GORILLA)) {
+            spool.append(readings);
+        }
+        Path segment = lastSegment();
+        long intact = Files.size(segment);
+        Files.write(segment, new byte[]{2, 9, 0, 0, 0, 100}, StandardOpenOption.APPEND);
+
+        try (ReadingSpool spool = open(ReadingCodec.Type.GORILLA)) {
+            assertEquals(40, spool.pending());
+            assertEquals(intact, Files.size(segment));
+            spool.append(readings(40, 10));
+            List<Reading> expected = new ArrayList<>(readings);
+            expected.addAll(readings(40, 10));
+            assertEquals(expected, spool.peek(100));
+        }
+    }
+
+    @Test
+    void skipsTheGapLeftByAnInvalidMiddleSegment() throws IOException {
+        try (ReadingSpool spool = open(ReadingCodec.Type.RAW)) {
+            for (int i = 0; i < 3; i++) {
+                spool.append(readings(i * 100, 100));
+            }
+        }
+        List<Path> files = segments();
+        assertEquals(3, files.size());
+        Files.write(files.get(1), new byte[]{0, 0, 0, 0}, StandardOpenOption.WRITE);
+
+        try (ReadingSpool spool = open(ReadingCodec.Type.RAW)) {
+            assertEquals(200, spool.pending());
+            assertEquals(100, spool.getDroppedCount());
+            List<Reading> expected = new ArrayList<>(readings(0, 100));
+            expected.addAll(readings(200, 100));
+            assertEquals(expected.subList(0, 150), spool.peek(150));
+            spool.ack(150);
+            assertEquals(50, spool.pending());
+            assertEquals(expected.subList(150, 200), spool.peek(100));
+            spool.ack(50);
+            assertEquals(0, spool.pending());
+        }
+    }
+
+    @Test
+    void dropsOldestSegmentsBeyondTheSizeLimit() throws IOException {
+        try (ReadingSpool spool = new ReadingSpool(directory, 1024, 4096, ReadingSpool.FsyncPolicy.NEVER, 0,
+                ReadingCodec.Type.RAW.codec())) {
+            for (int i = 0; i < 40; i++) {
+                spool.append(readings(i * 20, 20));
+            }
+            assertTrue(spool.sizeBytes() <= 4096 + 1024, "spool grew to " + spool.sizeBytes() + " bytes");
+            assertEquals(800, spool.pending() + spool.getDroppedCount());
+            List<Reading> remaining = spool.peek(800);
+            assertEquals(readings(800 - remaining.size(), remaining.size()), remaining);
+        }
+    }
+
+    @Test
+    void holdsFilesOpenOnlyWhileReadingsArePending() throws IOException {
+        assumeTrue(ManagementFactory.getOperatingSystemMXBean() instanceof UnixOperatingSystemMXBean);
+        UnixOperatingSystemMXBean os = (UnixOperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long before = os.getOpenFileDescriptorCount();
+        List<ReadingSpool> spools = new ArrayList<>();
+        try {
+            for (int i = 0; i < 200; i++) {
+                spools.add(new ReadingSpool(directory.resolve(Integer.toString(i)), SEGMENT_BYTES, MAX_BYTES,
+                        ReadingSpool.FsyncPolicy.NEVER, 0));
+            }
+            assertTrue(os.getOpenFileDescriptorCount() - before < 20, "idle spools hold descriptors");
+
+            for (ReadingSpool spool : spools) {
+                spool.append(readings(0, 10));
+                spool.ack(10);
+            }
+            assertTrue(os.getOpenFileDescriptorCount() - before < 20, "drained spools hold descriptors");
+        } finally {
+            for (ReadingSpool spool : spools) {
+                spool.close();
+            }
+        }
+    }
+
+    private ReadingSpool open(ReadingCodec.Type codec) throws IOException {
+        return new ReadingSpool(directory, SEGMENT_BYTES, MAX_BYTES, ReadingSpool.FsyncPolicy.ALWAYS, 0, codec.codec());
+    }
+
+    private Path lastSegment() throws IOException {
+        List<Path> files = segments();
+        return files.get(files.size() - 1);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+
+    private static List<Reading> readings(int from, int count) {
+        List<Reading> readings = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            readings.add(new Reading(1_700_000_000_000L + i * 1000L, 20 + (i % 7) * 0.5, 1013, 40 + i % 3, 300, 12));
+        }
+        return readings;
+    }
+}
@@ -0,0 +1,435 @@
+package sensor.client;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sensor.ReadingGenerator;
+import sensor.SamplingScheduler;
+import sensor.dto.DeltaBatchDto;
+import sensor.dto.Reading;
+import sensor.dto.ReadingDto;
+import sensor.dto.WindowSummary;
+import sensor.grpc.ReadingBatch;
+import sensor.grpc.ReadingResponse;
+import sensor.utils.ReadingSource;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Runs the uploader against a local HTTP server standing in for the REST backend.
+class ReadingUploaderTest {
+
+    private static final long PERIOD_MILLIS = 10;
+
+    @TempDir
+    Path spoolDirectory;
+
+    private MockServer server;
+    private ReadingUploader uploader;
+
+    @AfterEach
+    void tearDown() {
+        if (uploader != null) {
+            uploader.close(1000);
+        }
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    // Drives the real sampling path and records when each tick's offer returns on the calibration stage, so
+    // a flush that blocked either the timer or the offering thread on the server shows up as a gap.
+    @Test
+    void samplingCadenceHoldsWhileTheServerIsSlow() throws Exception {
+        server = new MockServer(0, true);
+        server.delayMillis = 300;
+        List<Long> offeredNanos = new CopyOnWriteArrayList<>();
+        uploader = new ReadingUploader(ServerClient.create(server.url()), 2001, 1000, 20, 100, 100,
+                ReadingUploader.OverflowPolicy.DROP_OLDEST) {
+            @Override
+            public boolean offer(Reading reading) {
+                boolean accepted = super.offer(reading);
+                offeredNanos.add(System.nanoTime());
+                return accepted;
+            }
+        };
+        uploader.start();
+        ReadingGenerator generator = new ReadingGenerator(null, uploader, 2001, new RowSource(), null);
+        SamplingScheduler scheduler = new SamplingScheduler(generator, PERIOD_MILLIS,
+                SamplingScheduler.MissedTickPolicy.CATCH_UP, 60_000);
+        scheduler.start();
+        try {
+            await(() -> offeredNanos.size() >= 200, "sampling stalled");
+        } finally {
+            scheduler.stop();
+        }
+
+        long worstGapNanos = 0;
+        for (int i = 1; i < 200; i++) {
+            worstGapNanos = Math.max(worstGapNanos, offeredNanos.get(i) - offeredNanos.get(i - 1));
+        }
+        assertTrue(worstGapNanos < TimeUnit.MILLISECONDS.toNanos(5 * PERIOD_MILLIS),
+                "ticks " + TimeUnit.NANOSECONDS.toMillis(worstGapNanos) + " ms apart against a 300 ms server");
+        assertTrue(scheduler.getMaxLatenessNanos() < TimeUnit.MILLISECONDS.toNanos(5 * PERIOD_MILLIS),
+                "a tick ran " + TimeUnit.NANOSECONDS.toMillis(scheduler.getMaxLatenessNanos()) + " ms late");
+        await(() -> server.readings.size() == offeredNanos.size(), "readings never reached the server");
+        assertEquals(0, server.singles.get());
+        assertTrue(server.batches.get() <= offeredNanos.size() / 5,
+                server.batches.get() + " batch requests for " + offeredNanos.size() + " readings");
+        long first = server.readings.get(0).getTimestamp();
+        for (int i = 0; i < server.readings.size(); i++) {
+            assertEquals(first + i * PERIOD_MILLIS, server.readings.get(i).getTimestamp());
+        }
+    }
+
+    @Test
+    void fallsBackToSingleReadingsWithoutABatchEndpoint() throws Exception {
+        server = new MockServer(0, false);
+        uploader = new ReadingUploader(ServerClient.create(server.url()), 2002, 1000, 10, 50, 100,
+                ReadingUploader.OverflowPolicy.DROP_OLDEST);
+        uploader.start();
+        for (int i = 0; i < 25; i++) {
+            uploader.offer(reading(i));
+        }
+
+        await(() -> server.readings.size() == 25, "readings never reached the server");
+        assertFalse(uploader.isBatchSupported());
+        assertEquals(25, server.singles.get());
+        assertInOrder(server.readings, 0, 25);
+    }
+
+    @Test
+    void dropsOldestReadingsWhenTheQueueIsFull() {
+        uploader = new ReadingUploader(ServerClient.create("http://127.0.0.1:9/"), 2003, 10, 100, 60_000, 0,
+                ReadingUploader.OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 25; i++) {
+            assertTrue(uploader.offer(reading(i)));
+        }
+        assertEquals(10, uploader.getQueueDepth());
+        assertEquals(15, uploader.getDroppedCount());
+    }
+
+    @Test
+    void spoolsWhileTheServerIsDownAndReplaysInOrderWhenItReturns() throws Exception {
+        int port = reservePort();
+        uploader = new ReadingUploader(ServerClient.create("http://127.0.0.1:" + port + "/"), 2004, 1000, 10, 50, 100,
+                ReadingUploader.OverflowPolicy.DROP_OLDEST, openSpool());
+        uploader.start();
+        for (int i = 0; i < 50; i++) {
+            uploader.offer(reading(i));
+        }
+        await(() -> uploader.getSpooledCount() == 50, "readings were not spooled while the server was down");
+
+        server = new MockServer(port, true);
+        for (int i = 50; i < 60; i++) {
+            uploader.offer(reading(i));
+        }
+        await(() -> server.readings.size() == 60, "spooled readings were not replayed");
+        // The server records a batch before the uploader sees the response and acks it.
+        await(() -> uploader.getSpooledCount() == 0, "replayed readings were not acked");
+        assertEquals(0, uploader.getDroppedCount());
+        assertInOrder(server.readings, 0, 60);
+    }
+
+    @Test
+    void spooledReadingsSurviveARestartOfTheSensor() throws Exception {
+        int port = reservePort();
+        ReadingUploader first = new ReadingUploader(ServerClient.create("http://127.0.0.1:" + port + "/"), 2005, 1000,
+                10, 60_000, 100, ReadingUploader.OverflowPolicy.DROP_OLDEST, openSpool());
+        for (int i = 0; i < 30; i++) {
+            first.offer(reading(i));
+        }
+        first.close(1000);
+
+        server = new MockServer(port, true);
+        uploader = new ReadingUploader(ServerClient.create(server.url()), 2005, 1000, 10, 50, 100,
+                ReadingUploader.OverflowPolicy.DROP_OLDEST, openSpool());
+        assertEquals(30, uploader.getSpooledCount());
+        uploader.start();
+        await(() -> server.readings.size() == 30, "recovered readings were not replayed");
+        assertInOrder(server.readings, 0, 30);
+    }
+
+    @Test
+    void aFailingSpoolDoesNotStopTheFlushTask() throws Exception {
+        server = new MockServer(0, true);
+        AtomicInteger failuresLeft = new AtomicInteger(3);
+        ReadingSpool spool = new ReadingSpool(spoolDirectory, 4096, 1 << 20, ReadingSpool.FsyncPolicy.NEVER, 0) {
+            @Override
+            public synchronized List<Reading> peek(int max) throws IOException {
+                if (failuresLeft.getAndDecrement() > 0) {
+                    throw new IllegalStateException("corrupt spool");
+                }
+                return super.peek(max);
+            }
+        };
+        spool.append(List.of(reading(0), reading(1), reading(2)));
+        uploader = new ReadingUploader(ServerClient.create(server.url()), 2006, 1000, 10, 50, 100,
+                ReadingUploader.OverflowPolicy.DROP_OLDEST, spool);
+        uploader.start();
+        uploader.offer(reading(3));
+
+        await(() -> server.readings.size() == 4, "uploads stopped after the spool failed");
+        assertInOrder(server.readings, 0, 4);
+    }
+
+    @Test
+    void offersAfterTheExecutorStopsAreDroppedNotThrown() {
+        ScheduledExecutorService shared = Executors.newSingleThreadScheduledExecutor();
+        uploader = new ReadingUploader(ServerClient.create("http://127.0.0.1:9/"), 2007, 1000, 2, 60_000, 0,
+                ReadingUploader.OverflowPolicy.DROP_OLDEST, shared, false);
+        shared.shutdownNow();
+
+        assertTrue(uploader.offer(reading(0)));
+        assertFalse(uploader.offer(reading(1)));
+        assertFalse(uploader.offerSummary(new WindowSummary(0, 1000, new double[0], List.of())));
+        assertEquals(1, uploader.getQueueDepth());
+        assertEquals(2, uploader.getDroppedCount());
+
+        uploader.close(1000);
+        assertFalse(uploader.offer(reading(2)));
+        assertEquals(3, uploader.getDroppedCount());
+    }
+
+    @Test
+    void deltaUploadsRebuildTheSeriesOnTheServer() throws Exception {
+        server = new MockServer(0, true);
+        server.deltaSupported = true;
+        uploader = new ReadingUploader(ServerClient.create(server.url()), 2008, 1000, 10, 50, 100,
+                ReadingUploader.OverflowPolicy.DROP_OLDEST);
+        uploader.setDeltaEncoding(true);
+        uploader.start();
+        for (int i = 0; i < 50; i++) {
+            uploader.offer(reading(i));
+        }
+
+        await(() -> server.readings.size() == 50, "delta batches never reached the server");
+        assertEquals(0, server.batches.get());
+        assertEquals(0, server.singles.get());
+        for (int i = 0; i < 50; i++) {
+            Reading sent = reading(i);
+            ReadingDto received = server.readings.get(i);
+            assertEquals(sent.timestamp(), received.getTimestamp());
+            assertEquals(sent.temperature(), received.getTemperature());
+            assertEquals(sent.pressure(), received.getPressure());
+            assertEquals(sent.humidity(), received.getHumidity());
+            assertEquals(sent.co(), received.getCo());
+            assertEquals(sent.so2(), received.getSo2());
+        }
+        // Only the first reading of a batch carries every channel; later ones repeat only what changed.
+        DeltaBatchDto batch = server.deltaBatches.get(0);
+        assertEquals(reading(0).timestamp(), batch.getBaseTimestamp());
+        assertEquals(1013.0, batch.getReadings().get(0).getPressure());
+        assertEquals(1000, batch.getReadings().get(1).getDt());
+        assertEquals(21.0, batch.getReadings().get(1).getTemperature());
+        assertNull(batch.getReadings().get(1).getPressure());
+    }
+
+    @Test
+    void deltaUploadsFallBackToPlainBatchesWithoutADeltaEndpoint() throws Exception {
+        server = new MockServer(0, true);
+        uploader = new ReadingUploader(ServerClient.create(server.url()), 2009, 1000, 10, 50, 100,
+                ReadingUploader.OverflowPolicy.DROP_OLDEST);
+        uploader.setDeltaEncoding(true);
+        uploader.start();
+        for (int i = 0; i < 30; i++) {
+            uploader.offer(reading(i));
+        }
+
+        await(() -> server.readings.size() == 30, "readings never reached the server");
+        assertEquals(1, server.deltaRequests.get());
+        assertTrue(server.deltaBatches.isEmpty());
+        assertInOrder(server.readings, 0, 30);
+    }
+
+    @Test
+    void protobufUploadsAreDecodedByTheServer() throws Exception {
+        server = new MockServer(0, true);
+        server.protobufSupported = true;
+        uploader = new ReadingUploader(ServerClient.create(server.url()), 2010, 1000, 10, 50, 100,
+                ReadingUploader.OverflowPolicy.DROP_OLDEST);
+        uploader.setUploadFormat(ReadingUploader.UploadFormat.PROTOBUF);
+        uploader.start();
+        for (int i = 0; i < 30; i++) {
+            uploader.offer(reading(i));
+        }
+
+        await(() -> server.readings.size() == 30, "protobuf batches never reached the server");
+        assertEquals(server.protobufRequests.get(), server.batches.get());
+        assertEquals(0, server.singles.get());
+        assertInOrder(server.readings, 0, 30);
+        assertEquals(reading(7).temperature(), server.readings.get(7).getTemperature());
+    }
+
+    @Test
+    void protobufUploadsFallBackToJsonWhenTheServerRefusesThem() throws Exception {
+        server = new MockServer(0, true);
+        uploader = new ReadingUploader(ServerClient.create(server.url()), 2011, 1000, 10, 50, 100,
+                ReadingUploader.OverflowPolicy.DROP_OLDEST);
+        uploader.setUploadFormat(ReadingUploader.UploadFormat.PROTOBUF);
+        uploader.start();
+        for (int i = 0; i < 30; i++) {
+            uploader.offer(reading(i));
+        }
+
+        await(() -> server.readings.size() == 30, "readings never reached the server");
+        assertEquals(1, server.protobufRequests.get());
+        assertEquals(0, server.singles.get());
+        assertTrue(uploader.isBatchSupported());
+        assertInOrder(server.readings, 0, 30);
+    }
+
+    private ReadingSpool openSpool() throws IOException {
+        return new ReadingSpool(spoolDirectory, 4096, 1 << 20, ReadingSpool.FsyncPolicy.ALWAYS, 0);
+    }
+
+    // A port nothing listens on until the test brings the server up on it.
+    private static int reservePort() throws IOException {
+        MockServer probe = new MockServer(0, true);
+        int port = probe.port();
+        probe.stop();
+        return port;
+    }
+
+    static Reading reading(int i) {
+        return new Reading(1_700_000_000_000L + i * 1000L, 20 + i % 5, 1013, 45, 300, 12);
+    }
+
+    static void assertInOrder(List<ReadingDto> readings, int first, int count) {
+        assertEquals(count, readings.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(reading(first + i).timestamp(), readings.get(i).getTimestamp());
+        }
+    }
+
+    static void await(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                fail(message);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static class RowSource implements ReadingSource {
+        @Override
+        public int size() {
+            return 5;
+        }
+
+        @Override
+        public Reading get(int row) {
+            return new Reading(0L, 20 + row, 1013, 45, 300, 12);
+        }
+    }
+
+    // Accepts JSON batch and single-reading uploads, JSON delta batches when deltaSupported is set and protobuf
+    // batches when protobufSupported is set. A refused protobuf batch is a 415 and anything else a 404, so the
+    // uploader settles on JSON.
+    static class MockServer {
+        private static final Gson GSON = new Gson();
+
+        final List<ReadingDto> readings = new CopyOnWriteArrayList<>();
+        final AtomicInteger batches = new AtomicInteger();
+        final AtomicInteger singles = new AtomicInteger();
+        final List<DeltaBatchDto> deltaBatches = new CopyOnWriteArrayList<>();
+        final AtomicInteger deltaRequests = new AtomicInteger();
+        final AtomicInteger protobufRequests = new AtomicInteger();
+        volatile long delayMillis;
+        volatile boolean deltaSupported;
+        volatile boolean protobufSupported;
+        private final boolean batchSupported;
+        private final HttpServer http;
+
+        MockServer(int port, boolean batchSupported) throws IOException {
+            this.batchSupported = batchSupported;
+            this.http = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+            http.createContext("/api/sensors/", this::handle);
+            http.start();
+        }
+
+        String url() {
+            return "http://127.0.0.1:" + port() + "/";
+        }
+
+        int port() {
+            return http.getAddress().getPort();
+        }
+
+        void stop() {
+            http.stop(0);
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            try (exchange) {
+                byte[] bytes = exchange.getRequestBody().readAllBytes();
+                String body = new String(bytes, StandardCharsets.UTF_8);
+                String path = exchange.getRequestURI().getPath();
+                String contentType = String.valueOf(exchange.getRequestHeaders().getFirst("Content-Type"));
+                boolean json = contentType.contains("json");
+                boolean protobuf = contentType.contains("x-protobuf");
+                sleep(delayMillis);
+                if (path.endsWith("/readings/delta")) {
+                    deltaRequests.incrementAndGet();
+                }
+                if (path.endsWith("/readings/delta") && deltaSupported && json) {
+                    DeltaBatchDto batch = GSON.fromJson(body, DeltaBatchDto.class);
+                    for (Reading reading : batch.decode()) {
+                        readings.add(reading.toDto());
+                    }
+                    deltaBatches.add(batch);
+                    exchange.sendResponseHeaders(200, -1);
+                } else if (path.endsWith("/readings/batch") && batchSupported && protobuf) {
+                    protobufRequests.incrementAndGet();
+                    if (protobufSupported) {
+                        for (ReadingResponse reading : ReadingBatch.parseFrom(bytes).getReadingsList()) {
+                            readings.add(Reading.fromResponse(reading).toDto());
+                        }
+                        batches.incrementAndGet();
+                        exchange.sendResponseHeaders(200, -1);
+                    } else {
+                        exchange.sendResponseHeaders(415, -1);
+                    }
+                } else if (path.endsWith("/readings/batch") && batchSupported && json) {
+                    readings.addAll(GSON.fromJson(body, new TypeToken<List<ReadingDto>>() { }.getType()));
+                    batches.incrementAndGet();
+                    exchange.sendResponseHeaders(200, -1);
+                } else if (path.endsWith("/readings") && json) {
+                    readings.add(GSON.fromJson(body, ReadingDto.class));
+                    singles.incrementAndGet();
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    exchange.sendResponseHeaders(404, -1);
+                }
+            }
+        }
+
+        private static void sleep(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package sensor.gossip;
+
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sensor.ReadingGenerator;
+import sensor.SensorConfig;
+import sensor.client.SensorGRPCClient;
+import sensor.dto.Reading;
+import sensor.server.SensorGRPCServer;
+import sensor.utils.NeighborInfo;
+import sensor.utils.ReadingSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Many sensors behind one in-process server, routed by the sensor-id header as in host mode, all seeded with
+// the first sensor only. Sensor i sits at latitude 45 + i / 100, so its nearest neighbors are i - 1 and i + 1.
+class GossipMembershipTest {
+
+    private static final int SENSORS = 20;
+
+    private final String name = InProcessServerBuilder.generateName();
+    private final List<NeighborInfo> infos = new ArrayList<>();
+    private final List<GossipMembership> memberships = new ArrayList<>();
+    private ManagedChannel channel;
+    private SensorGRPCServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        channel = InProcessChannelBuilder.forName(name).build();
+        SensorConfig config = new SensorConfig();
+        config.setGossipIntervalMillis(50);
+        config.setGossipProbeTimeoutMillis(500);
+        config.setGossipSuspicionMillis(1000);
+
+        for (int i = 1; i <= SENSORS; i++) {
+            infos.add(new NeighborInfo(i, "in-process", 0, 45 + i / 100.0, 16));
+        }
+        List<NeighborInfo> seeds = List.of(infos.get(0));
+        for (NeighborInfo info : infos) {
+            ReadingGenerator generator = new ReadingGenerator(null, null, info.getId(), new FixedSource(), null);
+            GossipMembership membership = new GossipMembership(info, seeds,
+                    neighbor -> new SensorGRPCClient(channel, neighbor.getId(), () -> { }), config);
+            if (server == null) {
+                server = new SensorGRPCServer(InProcessServerBuilder.forName(name), generator);
+            }
+            server.addSensor(generator, membership);
+            memberships.add(membership);
+        }
+        server.start();
+        memberships.forEach(GossipMembership::start);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        memberships.forEach(GossipMembership::close);
+        server.stop(1000);
+        channel.shutdownNow().awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void everySensorLearnsTheWholeMeshFromOneSeed() throws InterruptedException {
+        await(() -> memberships.stream().allMatch(m -> m.liveMembers() == SENSORS - 1), "membership never converged");
+
+        for (int i = 0; i < SENSORS; i++) {
+            NeighborInfo self = infos.get(i);
+            List<NeighborInfo> nearest = memberships.get(i).nearest(self.getId(), self.getLatitude(),
+                    self.getLongitude(), 2);
+            Set<Long> expected = i == 0 ? Set.of(2L, 3L)
+                    : i == SENSORS - 1 ? Set.of((long) SENSORS - 1, (long) SENSORS - 2)
+                    : Set.of((long) i, (long) i + 2);
+            assertEquals(expected, Set.of(nearest.get(0).getId(), nearest.get(1).getId()), "sensor " + self.getId());
+        }
+    }
+
+    @Test
+    void aSensorThatStopsAnsweringIsDeclaredDeadEverywhere() throws InterruptedException {
+        await(() -> memberships.stream().allMatch(m -> m.liveMembers() == SENSORS - 1), "membership never converged");
+        long versionBefore = memberships.get(0).getVersion();
+
+        int failed = SENSORS / 2;
+        long failedId = infos.get(failed).getId();
+        memberships.get(failed).close();
+        server.removeSensor(failedId);
+
+        List<GossipMembership> survivors = new ArrayList<>(memberships);
+        survivors.remove(failed);
+        await(() -> survivors.stream().allMatch(m -> m.liveMembers() == SENSORS - 2), "failure was never detected");
+        assertTrue(memberships.get(0).getVersion() > versionBefore);
+        for (GossipMembership membership : survivors) {
+            NeighborInfo near = infos.get(failed - 1);
+            for (NeighborInfo neighbor : membership.nearest(near.getId(), near.getLatitude(), near.getLongitude(), 3)) {
+                assertTrue(neighbor.getId() != failedId, "dead sensor still offered as a neighbor");
+            }
+        }
+    }
+
+    private static void await(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                fail(message);
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static class FixedSource implements ReadingSource {
+        @Override
+        public int size() {
+            return 1;
+        }
+
+        @Override
+        public Reading get(int row) {
+            return new Reading(0L, 20, 1013, 45, 300, 12);
+        }
+    }
+}
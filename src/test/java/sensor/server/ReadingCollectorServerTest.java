@@ -0,0 +1,137 @@
+package sensor.server;
+
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import sensor.client.ReadingStreamUploader;
+import sensor.dto.Reading;
+import sensor.grpc.SensorReading;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Drives the ReportReadings stream end to end against the reference receiver over an in-process transport.
+class ReadingCollectorServerTest {
+
+    private static final int SENSORS = 20;
+    private static final int BATCH = 50;
+
+    private final String name = InProcessServerBuilder.generateName();
+    private final ConcurrentLinkedQueue<SensorReading> received = new ConcurrentLinkedQueue<>();
+    private ReadingCollectorServer collector;
+    private ReadingStreamUploader uploader;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (uploader != null) {
+            uploader.close(1000);
+        }
+        if (collector != null) {
+            collector.stop(1000);
+        }
+    }
+
+    @Test
+    void deliversEverySensorsReadingsInOrderAndDrainsOnAck() throws Exception {
+        collector = startCollector();
+        uploader = new ReadingStreamUploader(channel(), 100_000);
+        uploader.start();
+
+        for (int round = 0; round < 5; round++) {
+            for (int sensor = 0; sensor < SENSORS; sensor++) {
+                assertTrue(uploader.offer(sensor, batch(round * BATCH)));
+            }
+        }
+        await(() -> uploader.getPendingCount() == 0, "uploader never drained");
+
+        int total = 5 * SENSORS * BATCH;
+        assertEquals(total, collector.getReceivedCount());
+        Map<Long, List<Long>> timestamps = new ConcurrentHashMap<>();
+        long previousSequence = -1;
+        for (SensorReading reading : received) {
+            assertTrue(reading.getSequence() > previousSequence, "sequence went back at " + reading.getSequence());
+            previousSequence = reading.getSequence();
+            timestamps.computeIfAbsent(reading.getSensorId(), id -> new ArrayList<>())
+                    .add(reading.getReading().getTimestamp());
+        }
+        assertEquals(SENSORS, timestamps.size());
+        for (List<Long> sensor : timestamps.values()) {
+            assertEquals(5 * BATCH, sensor.size());
+            for (int i = 0; i < sensor.size(); i++) {
+                assertEquals(1000L * i, sensor.get(i));
+            }
+        }
+    }
+
+    @Test
+    void refusesReadingsBeyondCapacity() throws Exception {
+        uploader = new ReadingStreamUploader(channel(), BATCH);
+        assertTrue(uploader.offer(1, batch(0)));
+        assertFalse(uploader.offer(2, batch(0)));
+        assertEquals(BATCH, uploader.getPendingCount());
+    }
+
+    @Test
+    void resendsUnackedReadingsAfterTheCollectorRestarts() throws Exception {
+        collector = startCollector();
+        uploader = new ReadingStreamUploader(channel(), 100_000);
+        uploader.start();
+        uploader.offer(1, batch(0));
+        await(() -> uploader.getPendingCount() == 0, "first batch never acked");
+
+        collector.stop(0);
+        uploader.offer(1, batch(BATCH));
+        collector = startCollector();
+        await(() -> uploader.getPendingCount() == 0, "readings queued while the collector was down never drained");
+
+        Set<Long> sequences = ConcurrentHashMap.newKeySet();
+        for (SensorReading reading : received) {
+            sequences.add(reading.getSequence());
+        }
+        for (long sequence = 0; sequence < 2 * BATCH; sequence++) {
+            assertTrue(sequences.contains(sequence), "sequence " + sequence + " was never delivered");
+        }
+    }
+
+    private ReadingCollectorServer startCollector() throws Exception {
+        ReadingCollectorServer server = new ReadingCollectorServer(InProcessServerBuilder.forName(name),
+                received::add, 16, 20);
+        server.start();
+        return server;
+    }
+
+    private ManagedChannel channel() {
+        return InProcessChannelBuilder.forName(name).build();
+    }
+
+    private static List<Reading> batch(int first) {
+        List<Reading> batch = new ArrayList<>(BATCH);
+        for (int i = first; i < first + BATCH; i++) {
+            batch.add(new Reading(1000L * i, 20 + i % 5, 1013, 45, 300, 12));
+        }
+        return batch;
+    }
+
+    private static void await(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                fail(message);
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package sensor.server;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import sensor.ReadingGenerator;
+import sensor.client.NeighborFetcher;
+import sensor.client.NeighborLink;
+import sensor.client.ReadingSubscription;
+import sensor.client.SensorGRPCClient;
+import sensor.dto.Reading;
+import sensor.grpc.ConditionalReadingResponse;
+import sensor.grpc.ReadingResponse;
+import sensor.utils.NeighborInfo;
+import sensor.utils.ReadingSource;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Serves one sensor over an in-process transport and checks what neighbors are told about its readings.
+class SensorGRPCServerTest {
+
+    private static final long SENSOR_ID = 7;
+    private static final long BUDGET_MILLIS = 2000;
+
+    private final String name = InProcessServerBuilder.generateName();
+    private final ReadingGenerator generator = new ReadingGenerator(null, null, SENSOR_ID, new RowSource(), null);
+    private SensorGRPCServer server;
+    private SensorGRPCClient client;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (client != null) {
+            client.shutdown();
+        }
+        if (server != null) {
+            server.stop(1000);
+        }
+    }
+
+    @Test
+    void answersWithoutAReadingBeforeTheFirstSample() throws Exception {
+        start();
+
+        for (long knownVersion : new long[]{-1, 0, 5000}) {
+            ConditionalReadingResponse response = client.getLastReadingIfModifiedAsync(knownVersion, BUDGET_MILLIS).get();
+            assertEquals(-1, response.getVersion());
+            assertFalse(response.getNotModified());
+            assertFalse(response.hasReading());
+        }
+
+        NeighborLink link = new NeighborLink(new NeighborInfo(SENSOR_ID, "localhost", 0), client);
+        assertNull(NeighborFetcher.first(List.of(link), BUDGET_MILLIS).get());
+        assertNull(NeighborFetcher.all(List.of(link), BUDGET_MILLIS).get()[0]);
+        assertNull(link.getInfo().getLastReading());
+    }
+
+    @Test
+    void answersNotModifiedOnlyForTheCurrentSample() throws Exception {
+        start();
+        generator.sample(1, 1000);
+
+        ConditionalReadingResponse response = client.getLastReadingIfModifiedAsync(-1, BUDGET_MILLIS).get();
+        assertEquals(1000, response.getVersion());
+        assertEquals(1000, response.getReading().getTimestamp());
+        assertEquals(1.0, response.getReading().getTemperature());
+        assertTrue(client.getLastReadingIfModifiedAsync(1000, BUDGET_MILLIS).get().getNotModified());
+
+        NeighborLink link = new NeighborLink(new NeighborInfo(SENSOR_ID, "localhost", 0), client);
+        Reading first = NeighborFetcher.first(List.of(link), BUDGET_MILLIS).get();
+        assertEquals(1000, first.timestamp());
+        generator.sample(2, 2000);
+        assertEquals(2000, NeighborFetcher.all(List.of(link), BUDGET_MILLIS).get()[0].timestamp());
+    }
+
+    @Test
+    void removingASensorCompletesItsSubscribersAndStopsServingIt() throws Exception {
+        start();
+        generator.sample(1, 1000);
+        List<Long> received = new CopyOnWriteArrayList<>();
+        CountDownLatch completed = new CountDownLatch(1);
+        ReadingSubscription subscription = client.subscribe(new StreamObserver<>() {
+            @Override
+            public void onNext(ReadingResponse value) {
+                received.add(value.getTimestamp());
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onCompleted() {
+                completed.countDown();
+            }
+        });
+        generator.sample(2, 2000);
+
+        server.removeSensor(SENSOR_ID);
+        assertTrue(completed.await(BUDGET_MILLIS, TimeUnit.MILLISECONDS), "subscriber was not completed");
+        assertFalse(subscription.isActive());
+        generator.sample(3, 3000);
+        assertEquals(List.of(1000L, 2000L), received);
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> client.getLastReadingIfModifiedAsync(-1, BUDGET_MILLIS).get());
+        assertEquals(Status.Code.NOT_FOUND, Status.fromThrowable(e.getCause()).getCode());
+    }
+
+    private void start() throws Exception {
+        server = new SensorGRPCServer(InProcessServerBuilder.forName(name).directExecutor(), generator);
+        server.start();
+        ManagedChannel channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        client = new SensorGRPCClient(channel, SENSOR_ID, channel::shutdown);
+    }
+
+    private static class RowSource implements ReadingSource {
+        @Override
+        public int size() {
+            return 10;
+        }
+
+        @Override
+        public Reading get(int row) {
+            return new Reading(0L, row, 1000 + row, 2 * row, 3 * row, row);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package sensor.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sensor.dto.Reading;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ColumnarReadingStoreTest {
+
+    private static final String CSV_PATH = "src/main/java/data/readings.csv";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void servesTheCsvRowsStampedWithTheTickTimestamp() throws Exception {
+        List<Reading> rows = CsvReader.readCsv(CSV_PATH);
+        Path store = directory.resolve("readings.csv.col");
+        ColumnarReadingStore.convert(CSV_PATH, store);
+        ColumnarReadingStore columns = ColumnarReadingStore.map(store);
+
+        assertEquals(rows.size(), columns.size());
+        for (int row = 0; row < rows.size(); row++) {
+            assertEquals(rows.get(row), columns.get(row));
+            assertEquals(rows.get(row).withTimestamp(1000L * row), columns.get(row, 1000L * row));
+        }
+    }
+}
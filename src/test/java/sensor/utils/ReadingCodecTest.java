@@ -0,0 +1,75 @@
+package sensor.utils;
+
+import org.junit.jupiter.api.Test;
+import sensor.dto.Reading;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadingCodecTest {
+
+    private static final String CSV_PATH = "src/main/java/data/readings.csv";
+    private static final int RAW_BYTES_PER_READING = 48;
+
+    @Test
+    void everyCodecRoundTripsTheBundledDataset() throws Exception {
+        List<Reading> readings = replay(CsvReader.readCsv(CSV_PATH), 1000);
+        for (ReadingCodec.Type type : ReadingCodec.Type.values()) {
+            ReadingCodec codec = type.codec();
+            assertEquals(readings, codec.decode(codec.encode(readings)), type.name());
+            assertEquals(type.codec(), ReadingCodec.Type.forId(codec.id()));
+        }
+    }
+
+    @Test
+    void gorillaIsAtLeastFourTimesSmallerThanRawOnASteadyCadence() throws Exception {
+        List<Reading> readings = replay(CsvReader.readCsv(CSV_PATH), 100);
+        int raw = ReadingCodec.Type.RAW.codec().encode(readings).length;
+        int gorilla = ReadingCodec.Type.GORILLA.codec().encode(readings).length;
+        assertEquals(Integer.BYTES + readings.size() * RAW_BYTES_PER_READING, raw);
+        assertTrue(gorilla * 4 <= raw, "gorilla block of " + gorilla + " bytes against " + raw + " raw");
+    }
+
+    @Test
+    void gorillaRoundTripsIrregularTimestampsAndSpecialValues() {
+        List<Reading> readings = List.of(
+                new Reading(0, 0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.MIN_VALUE),
+                new Reading(Long.MAX_VALUE / 2, Double.MAX_VALUE, 1, 1, 1, 1),
+                new Reading(-5, -1e-300, 1, 2, 3, 4),
+                new Reading(-5, -1e-300, 1, 2, 3, 4),
+                new Reading(1_000_000, 21.5, 1013.25, 40, 300, 12));
+        ReadingCodec codec = ReadingCodec.Type.GORILLA.codec();
+        assertEquals(readings, codec.decode(codec.encode(readings)));
+        assertEquals(List.of(), codec.decode(codec.encode(List.of())));
+    }
+
+    @Test
+    void decodeHonoursOffsetAndRejectsTruncatedBlocks() throws Exception {
+        List<Reading> readings = replay(CsvReader.readCsv(CSV_PATH), 20);
+        for (ReadingCodec.Type type : ReadingCodec.Type.values()) {
+            byte[] block = type.codec().encode(readings);
+            byte[] framed = new byte[block.length + 7];
+            System.arraycopy(block, 0, framed, 3, block.length);
+            assertEquals(readings, type.codec().decode(framed, 3, block.length), type.name());
+            assertThrows(IllegalArgumentException.class,
+                    () -> type.codec().decode(block, 0, block.length / 2), type.name());
+        }
+    }
+
+    // Rows of the dataset stamped at a 1 s cadence with a few milliseconds of scheduler jitter.
+    private static List<Reading> replay(List<Reading> rows, int count) {
+        Random random = new Random(42);
+        long timestamp = 1_700_000_000_000L;
+        List<Reading> readings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            timestamp += 1000 + random.nextInt(7) - 3;
+            readings.add(rows.get(i % rows.size()).withTimestamp(timestamp));
+        }
+        return readings;
+    }
+}
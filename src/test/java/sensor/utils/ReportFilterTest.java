@@ -0,0 +1,64 @@
+package sensor.utils;
+
+import org.junit.jupiter.api.Test;
+import sensor.dto.Reading;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportFilterTest {
+
+    private static final double[] DEADBANDS = {0.5, 1.0, 2.0, 10.0, 1.0};
+    private static final long HEARTBEAT_MILLIS = 60_000;
+
+    @Test
+    void reportsTheFirstReadingAndThenOnlyChannelsThatLeaveTheirDeadBand() {
+        ReportFilter filter = new ReportFilter(DEADBANDS, HEARTBEAT_MILLIS);
+        assertTrue(filter.accept(reading(0, 20, 1013, 45, 300, 12)));
+
+        assertFalse(filter.accept(reading(1000, 20.5, 1014, 47, 310, 13)), "a change equal to the band is not reported");
+        assertTrue(filter.accept(reading(2000, 20.6, 1013, 45, 300, 12)));
+        assertTrue(filter.accept(reading(3000, 20.6, 1011.9, 45, 300, 12)));
+        assertTrue(filter.accept(reading(4000, 20.6, 1011.9, 47.1, 300, 12)));
+        assertTrue(filter.accept(reading(5000, 20.6, 1011.9, 47.1, 289, 12)));
+        assertTrue(filter.accept(reading(6000, 20.6, 1011.9, 47.1, 289, 10.9)));
+    }
+
+    @Test
+    void measuresDriftFromTheLastReportedReading() {
+        ReportFilter filter = new ReportFilter(DEADBANDS, HEARTBEAT_MILLIS);
+        assertTrue(filter.accept(reading(0, 20, 1013, 45, 300, 12)));
+
+        // Each step stays inside the band, but the drift since the last report does not.
+        assertFalse(filter.accept(reading(1000, 20.2, 1013, 45, 300, 12)));
+        assertFalse(filter.accept(reading(2000, 20.4, 1013, 45, 300, 12)));
+        assertTrue(filter.accept(reading(3000, 20.6, 1013, 45, 300, 12)));
+        assertFalse(filter.accept(reading(4000, 20.2, 1013, 45, 300, 12)));
+    }
+
+    @Test
+    void reportsAnUnchangedReadingOncePerHeartbeat() {
+        ReportFilter filter = new ReportFilter(DEADBANDS, HEARTBEAT_MILLIS);
+        assertTrue(filter.accept(reading(0, 20, 1013, 45, 300, 12)));
+
+        assertFalse(filter.accept(reading(HEARTBEAT_MILLIS - 1, 20, 1013, 45, 300, 12)));
+        assertTrue(filter.accept(reading(HEARTBEAT_MILLIS, 20, 1013, 45, 300, 12)));
+        assertFalse(filter.accept(reading(HEARTBEAT_MILLIS + 1000, 20, 1013, 45, 300, 12)));
+
+        // A report for a change restarts the heartbeat.
+        assertTrue(filter.accept(reading(HEARTBEAT_MILLIS + 2000, 21, 1013, 45, 300, 12)));
+        assertFalse(filter.accept(reading(2 * HEARTBEAT_MILLIS, 21, 1013, 45, 300, 12)));
+        assertTrue(filter.accept(reading(2 * HEARTBEAT_MILLIS + 2000, 21, 1013, 45, 300, 12)));
+    }
+
+    @Test
+    void rejectsADeadBandPerChannelMismatch() {
+        assertThrows(IllegalArgumentException.class, () -> new ReportFilter(new double[]{1, 1}, HEARTBEAT_MILLIS));
+    }
+
+    private static Reading reading(long timestamp, double temperature, double pressure, double humidity, double co,
+                                   double so2) {
+        return new Reading(timestamp, temperature, pressure, humidity, co, so2);
+    }
+}
@@ -0,0 +1,110 @@
+package sensor.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sensor.dto.Reading;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// One source shared by many sensors, as in host mode: each sensor reads tick % size from its own phase, and
+// the sensors interleave in a different order every tick.
+class StreamingReadingSourceTest {
+
+    private static final int ROWS = 5000;
+    private static final int SENSORS = 50;
+    private static final int MAX_PHASE = 300;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void interleavedSensorsWithinTheWindowNeverRescan() throws IOException {
+        Path csv = writeCsv();
+        try (StreamingReadingSource source = StreamingReadingSource.open(csv.toString(), 1024)) {
+            replay(source, ROWS + 2 * MAX_PHASE);
+            assertEquals(ROWS, source.size());
+            assertEquals(0, source.getRewindCount());
+        }
+    }
+
+    @Test
+    void rowsOlderThanTheWindowAreStillCorrect() throws IOException {
+        Path csv = writeCsv();
+        try (StreamingReadingSource source = StreamingReadingSource.open(csv.toString(), 16)) {
+            replay(source, 200);
+            assertTrue(source.getRewindCount() > 0);
+        }
+    }
+
+    // Unpaced threads can drift further apart than the window, so this checks only that every row is right.
+    @Test
+    void concurrentSensorsReadTheirOwnRows() throws Exception {
+        Path csv = writeCsv();
+        AtomicReference<String> failure = new AtomicReference<>();
+        try (StreamingReadingSource source = StreamingReadingSource.open(csv.toString())) {
+            List<Thread> sensors = new ArrayList<>();
+            for (int s = 0; s < 8; s++) {
+                int phase = s * 37;
+                Thread thread = new Thread(() -> {
+                    for (int tick = 0; tick < 2 * ROWS && failure.get() == null; tick++) {
+                        int row = (phase + tick) % ROWS;
+                        double temperature = source.get(phase + tick).temperature();
+                        if (temperature != row) {
+                            failure.compareAndSet(null, "row " + row + " read as " + temperature);
+                        }
+                    }
+                });
+                thread.start();
+                sensors.add(thread);
+            }
+            for (Thread thread : sensors) {
+                thread.join();
+            }
+            assertNull(failure.get());
+        }
+    }
+
+    private static void replay(StreamingReadingSource source, int ticks) {
+        Random random = new Random(42);
+        int[] phases = new int[SENSORS];
+        List<Integer> order = new ArrayList<>();
+        for (int s = 0; s < SENSORS; s++) {
+            phases[s] = random.nextInt(MAX_PHASE);
+            order.add(s);
+        }
+        for (int tick = 0; tick < ticks; tick++) {
+            Collections.shuffle(order, random);
+            for (int s : order) {
+                int row = phases[s] + tick;
+                Reading reading = source.get(row);
+                assertEquals(row % ROWS, reading.temperature(), "row " + row);
+                assertEquals(1000 + row % ROWS % 30, reading.pressure(), "row " + row);
+            }
+        }
+    }
+
+    // Temperature carries the row number so every read can be checked.
+    private Path writeCsv() throws IOException {
+        Path csv = directory.resolve("readings.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(csv, StandardCharsets.US_ASCII)) {
+            writer.write("Temperature,Pressure,Humidity,CO,NO2,SO2,\n");
+            for (int i = 0; i < ROWS; i++) {
+                writer.write(i + "," + (1000 + i % 30) + ",40,300,500,1.5,\n");
+            }
+        }
+        return csv;
+    }
+}
@@ -0,0 +1,2 @@
+@echo off
+start cmd /k "java -jar build/libs/sensor-1.0-SNAPSHOT-all.jar --host 1000"